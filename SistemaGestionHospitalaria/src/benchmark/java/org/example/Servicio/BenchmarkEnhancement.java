@@ -0,0 +1,157 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.example.entidades.Cita;
+import org.example.entidades.Paciente;
+import org.hibernate.engine.spi.ManagedEntity;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Mide lo que cambia con el bytecode enhancement de Hibernate (ver {@code build.gradle}): cuántas
+ * consultas cuesta cargar una lista de pacientes, con y sin la historia clínica del uno a uno inverso,
+ * y cuánto tarda el flush con muchas entidades administradas y pocas modificadas.
+ *
+ * <p>El resultado depende de cómo se compiló: para comparar se corre {@code gradle benchmarkEnhancement}
+ * con y sin {@code -PsinEnhancement}. Corre sobre una base en memoria con el dataset chico; las
+ * modificaciones del flush se deshacen con rollback.</p>
+ */
+public class BenchmarkEnhancement {
+
+    public record Resultado(boolean enhancement, int pacientes, int sentenciasCarga, long historiasCargadas,
+                            int citasAdministradas, int citasModificadas, Duration flushConCambios,
+                            Duration flushSinCambios) {
+
+        public double consultasPorPaciente() {
+            return pacientes == 0 ? 0 : (double) sentenciasCarga / pacientes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Enhancement: %s%n"
+                            + "Carga de %d pacientes: %d sentencias (%.3f por paciente), %d historias clínicas cargadas%n"
+                            + "Flush con %d citas administradas y %d modificadas: %.3f ms (sin cambios: %.3f ms)",
+                    enhancement ? "sí" : "no", pacientes, sentenciasCarga, consultasPorPaciente(), historiasCargadas,
+                    citasAdministradas, citasModificadas, flushConCambios.toNanos() / 1e6,
+                    flushSinCambios.toNanos() / 1e6);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        InstrumentacionPersistencia instrumentacion = new InstrumentacionPersistencia(Duration.ofSeconds(1), 2, sentencia -> {
+        });
+        Map<String, Object> propiedades = new HashMap<>(instrumentacion.propiedades());
+        propiedades.put("jakarta.persistence.jdbc.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        propiedades.put("hibernate.hbm2ddl.auto", "create");
+        propiedades.put("hibernate.show_sql", "false");
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hospital-persistence-unit", propiedades);
+        try {
+            new CargadorMasivo(emf, Runtime.getRuntime().availableProcessors(), 1_000)
+                    .cargar(new GeneradorDatos(EscalaDatos.pequena()));
+            EntityManager em = emf.createEntityManager();
+            Long idHospital;
+            try {
+                idHospital = em.createQuery("SELECT MIN(h.idHospital) FROM Hospital h", Long.class).getSingleResult();
+            } finally {
+                em.close();
+            }
+            System.out.println(new BenchmarkEnhancement(emf, instrumentacion, 11).medir(idHospital, 5_000, 10));
+        } finally {
+            emf.close();
+        }
+    }
+
+    private final EntityManagerFactory emf;
+    private final InstrumentacionPersistencia instrumentacion;
+    private final int repeticiones;
+
+    /**
+     * @param emf creado con {@link InstrumentacionPersistencia#propiedades()} de {@code instrumentacion}
+     */
+    public BenchmarkEnhancement(EntityManagerFactory emf, InstrumentacionPersistencia instrumentacion, int repeticiones) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+        this.instrumentacion = Objects.requireNonNull(instrumentacion, "La instrumentación no puede ser nula");
+        if (repeticiones <= 0) {
+            throw new IllegalArgumentException("Las repeticiones deben ser mayores que cero");
+        }
+        this.repeticiones = repeticiones;
+    }
+
+    /**
+     * Indica si las entidades de esta compilación pasaron por el enhancer.
+     */
+    public static boolean enhancementActivo() {
+        return ManagedEntity.class.isAssignableFrom(Paciente.class);
+    }
+
+    /**
+     * @param idHospital         hospital cuyos pacientes se listan
+     * @param citasAdministradas cuántas citas cargar en el contexto antes del flush
+     * @param citasModificadas   cuántas de ellas modificar
+     */
+    public Resultado medir(Long idHospital, int citasAdministradas, int citasModificadas) {
+        if (citasModificadas > citasAdministradas) {
+            throw new IllegalArgumentException("No se pueden modificar más citas de las que se cargan");
+        }
+        int[] pacientes = new int[1];
+        InstrumentacionPersistencia.Reporte carga = instrumentacion.medir("pacientes", () -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                pacientes[0] = em.createQuery("SELECT p FROM Paciente p WHERE p.hospital.idHospital = :hospital",
+                                Paciente.class)
+                        .setParameter("hospital", idHospital)
+                        .getResultList()
+                        .size();
+            } finally {
+                em.close();
+            }
+        });
+
+        long[] conCambios = new long[repeticiones];
+        long[] sinCambios = new long[repeticiones];
+        int cargadas = 0;
+        for (int i = 0; i < repeticiones; i++) {
+            EntityManager em = emf.createEntityManager();
+            try {
+                em.getTransaction().begin();
+                List<Cita> citas = em.createQuery("SELECT c FROM Cita c JOIN FETCH c.paciente JOIN FETCH c.medico "
+                                + "JOIN FETCH c.sala ORDER BY c.idCita", Cita.class)
+                        .setMaxResults(citasAdministradas)
+                        .getResultList();
+                cargadas = citas.size();
+                for (int j = 0; j < Math.min(citasModificadas, citas.size()); j++) {
+                    citas.get(j).setObservaciones("benchmark " + i);
+                }
+                long inicio = System.nanoTime();
+                em.flush();
+                conCambios[i] = System.nanoTime() - inicio;
+                // Segundo flush: nada cambió, solo se paga el recorrido del contexto
+                inicio = System.nanoTime();
+                em.flush();
+                sinCambios[i] = System.nanoTime() - inicio;
+            } finally {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                em.close();
+            }
+        }
+
+        return new Resultado(enhancementActivo(), pacientes[0], carga.cantidadSentencias(),
+                carga.cargasPorEntidad().getOrDefault("HistoriaClinica", 0L), cargadas,
+                Math.min(citasModificadas, cargadas), mediana(conCambios), mediana(sinCambios));
+    }
+
+    private static Duration mediana(long[] nanos) {
+        long[] ordenados = nanos.clone();
+        Arrays.sort(ordenados);
+        return Duration.ofNanos(ordenados[ordenados.length / 2]);
+    }
+}
@@ -4,13 +4,35 @@ import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 
 import jakarta.persistence.TypedQuery;
+import org.example.Servicio.ArchivoCitas;
+import org.example.Servicio.ArranqueRapido;
+import org.example.Servicio.CargadorMasivo;
+import org.example.Servicio.CatalogoClinico;
+import org.example.Servicio.EscalaDatos;
+import org.example.Servicio.GeneradorDatos;
+import org.example.Servicio.HospitalService;
+import org.example.Servicio.MedicoService;
+import org.example.Servicio.PersistenciaReportes;
 import org.example.entidades.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--generar")) {
+            generarDatos(args.length > 1 && args[1].equals("red") ? EscalaDatos.red() : EscalaDatos.pequena());
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--arranque-rapido")) {
+            arranqueRapido();
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--reportes")) {
+            reportes(args.length > 1 ? args[1] : null);
+            return;
+        }
         EntityManagerFactory emf = Persistence.createEntityManagerFactory("hospital-persistence-unit");
         EntityManager em = emf.createEntityManager();
 
@@ -36,12 +58,8 @@ public class Main {
         List<Medico> cardiologos = query.getResultList();
 
         // Contar citas por estado
-        Long citasCompletadas = em.createQuery(
-                        "SELECT COUNT(c) FROM Cita c WHERE c.estado = :estado",
-                        Long.class
-                )
-                .setParameter("estado", EstadoCita.COMPLETADA)
-                .getSingleResult();
+        // Incluye las completadas que ya pasaron al archivo
+        long citasCompletadas = ArchivoCitas.contarPorEstado(em, EstadoCita.COMPLETADA);
 
         // Obtener pacientes con alergias
         TypedQuery<Paciente> queryAlergicos = em.createQuery(
@@ -52,6 +70,41 @@ public class Main {
         );
 
     }
+    private static void generarDatos(EscalaDatos escala) {
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hospital-persistence-unit");
+        try {
+            CargadorMasivo cargador = new CargadorMasivo(emf, Runtime.getRuntime().availableProcessors(), 1_000);
+            CargadorMasivo.Resumen resumen = cargador.cargar(new GeneradorDatos(escala));
+            System.out.println("Carga finalizada: " + resumen);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            emf.close();
+        }
+    }
+
+    private static void arranqueRapido() {
+        ArranqueRapido arranque = new ArranqueRapido("hospital-persistence-unit", Map.of(),
+                Runtime.getRuntime().availableProcessors());
+        try (ArranqueRapido.Resultado resultado = arranque.arrancar(LocalDate.now().atStartOfDay())) {
+            resultado.fases().forEach((fase, duracion) -> System.out.println(fase + ": " + duracion.toMillis() + " ms"));
+            System.out.println("Listo en " + resultado.total().toMillis() + " ms con "
+                    + resultado.citaManager().cantidadCitas() + " citas");
+        }
+    }
+
+    // Dashboard y estadísticas por el camino de solo lectura, opcionalmente contra una réplica
+    private static void reportes(String urlReplica) {
+        try (PersistenciaReportes reportes = new PersistenciaReportes("hospital-persistence-unit", Map.of(), urlReplica)) {
+            reportes.consultar(em -> {
+                new HospitalService(em).generarResumenRecursos();
+                new MedicoService(em).contarMedicosPorEspecialidad()
+                        .forEach((especialidad, cantidad) -> System.out.println(especialidad + ": " + cantidad));
+                return null;
+            });
+        }
+    }
+
     private static void inicializarDB( EntityManager em){
 
         Hospital hospital = Hospital.builder()
@@ -80,9 +133,11 @@ public class Main {
         hospital.agregarDepartamento(traumatologia);
 
 
-        Sala s1 = cardiologia.crearSala("CARD-101", "Consultorio");
-        Sala s2 = pediatria.crearSala("PED-201", "Consultorio");
-        Sala s3 = traumatologia.crearSala("TRA-301", "Quirófano");
+        CatalogoClinico catalogo = new CatalogoClinico(em.getEntityManagerFactory());
+
+        Sala s1 = cardiologia.crearSala("CARD-101", catalogo.tipoSala("Consultorio"));
+        Sala s2 = pediatria.crearSala("PED-201", catalogo.tipoSala("Consultorio"));
+        Sala s3 = traumatologia.crearSala("TRA-301", catalogo.tipoSala("Quirófano"));
 
 
         Medico m1 = Medico.builder()
@@ -120,8 +175,8 @@ public class Main {
 
         hospital.agregarPaciente(p1);
 
-        p1.getHistoriaClinica().agregarDiagnostico("Hipertensión arterial");
-        p1.getHistoriaClinica().agregarTratamiento("Enalapril 10mg");
+        p1.getHistoriaClinica().agregarDiagnostico(catalogo.diagnostico("Hipertensión arterial"));
+        p1.getHistoriaClinica().agregarTratamiento(catalogo.tratamiento("Enalapril"), "10mg");
         p1.getHistoriaClinica().agregarAlergia("Lacteos");
 
         em.persist(hospital);
@@ -0,0 +1,15 @@
+package org.example.Servicio;
+
+import org.example.entidades.EstadoCita;
+
+import java.time.LocalDateTime;
+
+/**
+ * Renglón de agenda: hora, paciente y sala de una cita.
+ */
+public record AgendaItem(Long idCita,
+                         LocalDateTime fechaHora,
+                         String paciente,
+                         String sala,
+                         EstadoCita estado) {
+}
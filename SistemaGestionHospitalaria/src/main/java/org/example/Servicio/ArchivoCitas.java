@@ -0,0 +1,308 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entidades.EstadoCita;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Archivo de citas terminadas: mueve las completadas, canceladas y no asistidas anteriores a un corte
+ * de {@code cita_tabla} a {@code cita_archivo}, para que la tabla activa quede chica y en caché.
+ *
+ * <p>Se mueve de a lotes de {@code tamanoLote} filas, cada uno en su propia transacción corta
+ * (insertar en el archivo y borrar de la activa), así que las reservas nunca esperan a todo el proceso;
+ * además solo se tocan filas que ya no ocupan turno. {@link #programar} lo deja corriendo periódicamente.</p>
+ *
+ * <p>{@link #getLimite()} es la fecha de la cita archivada más nueva: una consulta por rango solo
+ * necesita mirar el archivo si su rango empieza antes o en ese momento ({@link #alcanza}). Lo que archiva
+ * esta instancia lo adelanta en el momento; lo que archive otra (otro nodo, otra corrida) se ve al releerlo,
+ * a lo sumo {@link #VIGENCIA_LIMITE} después.
+ * {@link ListadoService} y {@link ExportacionService} lo usan para sumar el archivo cuando hace falta;
+ * los conteos sin rango de fechas siempre lo suman ({@link #contarPorEstado}).</p>
+ */
+public class ArchivoCitas implements AutoCloseable {
+
+    public record Resumen(long movidas, int lotes, Duration duracion) {
+    }
+
+    private static final String TERMINADAS = "estado IN ('COMPLETADA', 'CANCELADA', 'NO_ASISTIO')";
+    private static final String SELECCIONAR =
+            "SELECT idCita, fecha_hora FROM cita_tabla WHERE " + TERMINADAS + " AND fecha_hora < ? "
+                    + "ORDER BY fecha_hora FETCH FIRST ? ROWS ONLY";
+    private static final String COPIAR =
+            "INSERT INTO cita_archivo (idCita, paciente_id, medico_id, sala_id, fecha_hora, costo, estado, "
+                    + "observaciones, archivada_en) SELECT idCita, paciente_id, medico_id, sala_id, fecha_hora, costo, "
+                    + "estado, observaciones, ? FROM cita_tabla WHERE " + TERMINADAS + " AND idCita IN ";
+    private static final String BORRAR = "DELETE FROM cita_tabla WHERE " + TERMINADAS + " AND idCita IN ";
+
+    /** Cada cuánto se relee el límite de la base. */
+    public static final Duration VIGENCIA_LIMITE = Duration.ofSeconds(30);
+
+    private static final String LIMITE = "SELECT MAX(a.fechaHora) FROM CitaArchivada a";
+
+    private final EntityManagerFactory emf;
+    private final SessionFactory sessionFactory;
+    private final int tamanoLote;
+    // Un solo archivado a la vez: dos corridas tomarían el mismo lote
+    private final Object bloqueo = new Object();
+    private volatile boolean limiteCargado;
+    private volatile long limiteLeidoNanos;
+    private volatile LocalDateTime limite;
+    // Protegido por this, aparte del bloqueo de archivado para que close no espere una corrida entera
+    private ScheduledExecutorService programador;
+
+    public ArchivoCitas(EntityManagerFactory emf, int tamanoLote) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
+        }
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Archiva las citas terminadas con fecha anterior a {@code corte}, de a lotes, hasta que no quede ninguna.
+     */
+    public Resumen archivar(LocalDateTime corte) {
+        Objects.requireNonNull(corte, "El corte no puede ser nulo");
+        long inicio = System.nanoTime();
+        long movidas = 0;
+        int lotes = 0;
+        synchronized (bloqueo) {
+            getLimite();
+            int movidasLote;
+            while ((movidasLote = moverLote(corte)) > 0) {
+                movidas += movidasLote;
+                lotes++;
+            }
+        }
+        return new Resumen(movidas, lotes, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    /**
+     * Corre {@link #archivar} cada {@code periodo} con corte en ahora menos {@code antiguedad}.
+     */
+    public void programar(Duration periodo, Period antiguedad) {
+        Objects.requireNonNull(periodo, "El período no puede ser nulo");
+        Objects.requireNonNull(antiguedad, "La antigüedad no puede ser nula");
+        synchronized (this) {
+            if (programador != null) {
+                throw new IllegalStateException("El archivado ya está programado");
+            }
+            programador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "archivo-citas");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                archivar(LocalDateTime.now().minus(antiguedad));
+            } catch (RuntimeException e) {
+                // Se reintenta en la próxima corrida; lo ya movido quedó confirmado lote por lote
+                System.err.println("Error al archivar citas: " + e.getMessage());
+            }
+        }, 0, periodo.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fecha de la cita archivada más nueva, o null si el archivo está vacío. Se relee de la base si
+     * pasó más de {@link #VIGENCIA_LIMITE} desde la última lectura.
+     */
+    public LocalDateTime getLimite() {
+        if (!limiteCargado || System.nanoTime() - limiteLeidoNanos > VIGENCIA_LIMITE.toNanos()) {
+            EntityManager em = emf.createEntityManager();
+            try {
+                limite = leerLimite(em);
+                limiteLeidoNanos = System.nanoTime();
+                limiteCargado = true;
+            } finally {
+                em.close();
+            }
+        }
+        return limite;
+    }
+
+    private static LocalDateTime leerLimite(EntityManager em) {
+        return em.createQuery(LIMITE, LocalDateTime.class).getSingleResult();
+    }
+
+    /**
+     * Indica si una consulta que empieza en {@code desde} puede encontrar citas en el archivo.
+     */
+    public boolean alcanza(LocalDateTime desde) {
+        LocalDateTime actual = getLimite();
+        return actual != null && !desde.isAfter(actual);
+    }
+
+    /**
+     * Como {@link #alcanza(LocalDateTime)}, para quien no tiene un ArchivoCitas compartido: sin nadie que
+     * avise que se archivó más, el límite se lee de la base en cada llamada.
+     */
+    public static boolean alcanza(EntityManager em, LocalDateTime desde) {
+        LocalDateTime actual = leerLimite(em);
+        return actual != null && !desde.isAfter(actual);
+    }
+
+    /**
+     * Cantidad de citas en el estado dado contando la tabla activa y el archivo. Las programadas y en
+     * curso nunca se archivan, así que para esas no se consulta el archivo.
+     */
+    public static long contarPorEstado(EntityManager em, EstadoCita estado) {
+        long activas = em.createQuery("SELECT COUNT(c) FROM Cita c WHERE c.estado = :estado", Long.class)
+                .setParameter("estado", estado)
+                .getSingleResult();
+        if (estado == EstadoCita.PROGRAMADA || estado == EstadoCita.EN_CURSO) {
+            return activas;
+        }
+        return activas + em.createQuery("SELECT COUNT(a) FROM CitaArchivada a WHERE a.estado = :estado", Long.class)
+                .setParameter("estado", estado)
+                .getSingleResult();
+    }
+
+    // Devuelve cuántas citas movió; 0 si no quedaba nada
+    private int moverLote(LocalDateTime corte) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                int movidas = session.doReturningWork(conexion -> {
+                    List<Long> ids = new ArrayList<>(tamanoLote);
+                    LocalDateTime masNueva = null;
+                    try (PreparedStatement ps = conexion.prepareStatement(SELECCIONAR)) {
+                        ps.setObject(1, corte);
+                        ps.setInt(2, tamanoLote);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                ids.add(rs.getLong(1));
+                                masNueva = rs.getObject(2, LocalDateTime.class);
+                            }
+                        }
+                    }
+                    if (ids.isEmpty()) {
+                        return 0;
+                    }
+                    int copiadas = ejecutar(conexion, COPIAR, ids, LocalDateTime.now());
+                    int borradas = ejecutar(conexion, BORRAR, ids, null);
+                    if (copiadas != borradas) {
+                        // Alguna fila cambió de estado entre la copia y el borrado
+                        throw new SQLException("Se copiaron " + copiadas + " citas y se borraron " + borradas);
+                    }
+                    actualizarLimite(masNueva);
+                    return borradas;
+                });
+                tx.commit();
+                return movidas;
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                // El límite pudo adelantarse con un lote que no se confirmó: se vuelve a leer de la base
+                limiteCargado = false;
+                throw e;
+            }
+        }
+    }
+
+    private static int ejecutar(Connection conexion, String sql, List<Long> ids, LocalDateTime archivadaEn)
+            throws SQLException {
+        String marcadores = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        try (PreparedStatement ps = conexion.prepareStatement(sql + "(" + marcadores + ")")) {
+            int i = 1;
+            if (archivadaEn != null) {
+                ps.setTimestamp(i++, Timestamp.valueOf(archivadaEn));
+            }
+            for (Long id : ids) {
+                ps.setLong(i++, id);
+            }
+            return ps.executeUpdate();
+        }
+    }
+
+    private void actualizarLimite(LocalDateTime masNueva) {
+        if (limite == null || masNueva.isAfter(limite)) {
+            limite = masNueva;
+        }
+    }
+
+    /**
+     * Intercala dos streams ya ordenados por {@code orden} en uno ordenado, sin juntarlos en memoria.
+     * Cerrar el resultado cierra los dos.
+     */
+    static <T> Stream<T> intercalar(Stream<T> a, Stream<T> b, Comparator<? super T> orden) {
+        Iterator<T> izquierda = a.iterator();
+        Iterator<T> derecha = b.iterator();
+        Iterator<T> intercalado = new Iterator<>() {
+            private T siguienteIzquierda = izquierda.hasNext() ? izquierda.next() : null;
+            private T siguienteDerecha = derecha.hasNext() ? derecha.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return siguienteIzquierda != null || siguienteDerecha != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T elegido;
+                if (siguienteDerecha == null
+                        || (siguienteIzquierda != null && orden.compare(siguienteIzquierda, siguienteDerecha) <= 0)) {
+                    elegido = siguienteIzquierda;
+                    siguienteIzquierda = izquierda.hasNext() ? izquierda.next() : null;
+                } else {
+                    elegido = siguienteDerecha;
+                    siguienteDerecha = derecha.hasNext() ? derecha.next() : null;
+                }
+                return elegido;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(intercalado, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try (a; b) {
+                        // solo para cerrar ambos
+                    }
+                });
+    }
+
+    /**
+     * Detiene el archivado programado; un lote en curso termina antes de volver.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        ScheduledExecutorService actual;
+        synchronized (this) {
+            actual = programador;
+            programador = null;
+        }
+        if (actual != null) {
+            actual.shutdown();
+            actual.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.example.entidades.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Arranque en caliente: deja un {@link CitaManager} listo a partir del estado guardado en la base
+ * (la instantánea que mantiene al día {@link EscrituraDiferida}), sin pasar por el camino lento.
+ *
+ * <ul>
+ *     <li>El EntityManagerFactory se crea con {@code hbm2ddl.auto=none}: el esquema ya existe y no se
+ *     compara contra las entidades en cada arranque.</li>
+ *     <li>Salas y médicos se leen en paralelo con las citas, que llegan como filas escalares, sin
+ *     entidades administradas. De los pacientes solo se cargan, con su historia clínica, los que
+ *     referencian esas citas, con consultas {@code IN} de a {@code BLOQUE_PACIENTES}.</li>
+ *     <li>Los índices por paciente, médico y sala se arman en paralelo, y los de las citas anteriores
+ *     al corte recién cuando alguien los consulta.</li>
+ * </ul>
+ *
+ * <p>Cada fase queda cronometrada en {@link Resultado#fases()}.</p>
+ */
+public class ArranqueRapido {
+
+    private static final String CITAS = "SELECT c.idCita, c.paciente.id, c.medico.idMedico, c.sala.idSala, "
+            + "c.fechaHora, c.costo, c.estado, c.observaciones FROM Cita c";
+    private static final int BLOQUE_PACIENTES = 1_000;
+
+    /**
+     * Lo que queda en pie después del arranque. El EntityManager de los catálogos sigue abierto para
+     * que se puedan navegar sus asociaciones perezosas; {@link #close()} lo cierra junto con el factory.
+     */
+    public record Resultado(EntityManagerFactory emf, EntityManager catalogos, CitaManager citaManager,
+                            Map<String, Duration> fases) implements AutoCloseable {
+
+        public Duration total() {
+            return fases.values().stream().reduce(Duration.ZERO, Duration::plus);
+        }
+
+        @Override
+        public void close() {
+            catalogos.close();
+            emf.close();
+        }
+    }
+
+    private record Catalogos(Map<Long, Medico> medicos, Map<Long, Sala> salas) {
+    }
+
+    private final String unidadPersistencia;
+    private final Map<String, Object> propiedades;
+    private final int hilos;
+
+    public ArranqueRapido(String unidadPersistencia, Map<String, ?> propiedades, int hilos) {
+        this.unidadPersistencia = Objects.requireNonNull(unidadPersistencia, "La unidad de persistencia no puede ser nula");
+        if (hilos <= 0) {
+            throw new IllegalArgumentException("La cantidad de hilos debe ser mayor que cero");
+        }
+        this.propiedades = new HashMap<>(propiedades);
+        this.propiedades.put("hibernate.hbm2ddl.auto", "none");
+        this.propiedades.put("hibernate.show_sql", "false");
+        this.hilos = hilos;
+    }
+
+    /**
+     * @param corte las citas anteriores que ya no ocupan turno se indexan en forma perezosa
+     */
+    public Resultado arrancar(LocalDateTime corte) {
+        Map<String, Duration> fases = new LinkedHashMap<>();
+        long inicio = System.nanoTime();
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory(unidadPersistencia, propiedades);
+        inicio = registrarFase(fases, "factory", inicio);
+
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        EntityManager catalogos = emf.createEntityManager();
+        // Cualquier falla (no solo las esperadas) tiene que cerrar el EntityManager y la factory
+        boolean arrancado = false;
+        try {
+            CompletableFuture<Catalogos> lecturaCatalogos =
+                    CompletableFuture.supplyAsync(() -> leerCatalogos(catalogos), pool);
+            CompletableFuture<List<Object[]>> lecturaCitas =
+                    CompletableFuture.supplyAsync(() -> leerCitas(emf), pool);
+            Catalogos leidos = lecturaCatalogos.join();
+            List<Object[]> filas = lecturaCitas.join();
+            inicio = registrarFase(fases, "lectura", inicio);
+
+            Map<Long, Paciente> pacientes = leerPacientes(catalogos, filas);
+            inicio = registrarFase(fases, "pacientes", inicio);
+
+            List<Cita> citas = armarCitas(filas, pacientes, leidos);
+            inicio = registrarFase(fases, "armado", inicio);
+
+            CitaManager citaManager = new CitaManager();
+            citaManager.reconstruir(citas, corte, pool);
+            registrarFase(fases, "indices", inicio);
+
+            Resultado resultado = new Resultado(emf, catalogos, citaManager, Collections.unmodifiableMap(fases));
+            arrancado = true;
+            return resultado;
+        } catch (CompletionException | IllegalStateException e) {
+            Throwable causa = e instanceof CompletionException ? e.getCause() : e;
+            throw new IllegalStateException("Falló el arranque en caliente: " + causa.getMessage(), causa);
+        } finally {
+            pool.shutdown();
+            if (!arrancado) {
+                catalogos.close();
+                emf.close();
+            }
+        }
+    }
+
+    private long registrarFase(Map<String, Duration> fases, String fase, long inicio) {
+        long fin = System.nanoTime();
+        fases.put(fase, Duration.ofNanos(fin - inicio));
+        return fin;
+    }
+
+    private Catalogos leerCatalogos(EntityManager em) {
+        Map<Long, Sala> salas = new HashMap<>();
+        for (Sala sala : em.createQuery(
+                "SELECT s FROM Sala s JOIN FETCH s.tipo JOIN FETCH s.departamento d LEFT JOIN FETCH d.hospital", Sala.class)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultList()) {
+            salas.put(sala.getIdSala(), sala);
+        }
+        Map<Long, Medico> medicos = new HashMap<>();
+        for (Medico medico : em.createQuery("SELECT m FROM Medico m", Medico.class)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultList()) {
+            medicos.put(medico.getIdMedico(), medico);
+        }
+        return new Catalogos(medicos, salas);
+    }
+
+    // Solo los pacientes que referencian las citas leídas, no el padrón entero
+    private Map<Long, Paciente> leerPacientes(EntityManager em, List<Object[]> filas) {
+        Set<Long> distintos = new HashSet<>();
+        for (Object[] fila : filas) {
+            distintos.add((Long) fila[1]);
+        }
+        List<Long> ids = new ArrayList<>(distintos);
+        Map<Long, Paciente> pacientes = new HashMap<>(ids.size() * 2);
+        for (int desde = 0; desde < ids.size(); desde += BLOQUE_PACIENTES) {
+            // La historia clínica es el lado inverso de un uno a uno: sin el fetch se consultaría una por paciente
+            for (Paciente paciente : em.createQuery(
+                    "SELECT p FROM Paciente p LEFT JOIN FETCH p.historiaClinica WHERE p.id IN :ids", Paciente.class)
+                    .setParameter("ids", ids.subList(desde, Math.min(ids.size(), desde + BLOQUE_PACIENTES)))
+                    .setHint("org.hibernate.readOnly", true)
+                    .getResultList()) {
+                pacientes.put(paciente.getId(), paciente);
+            }
+        }
+        return pacientes;
+    }
+
+    private List<Object[]> leerCitas(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery(CITAS, Object[].class).getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    private List<Cita> armarCitas(List<Object[]> filas, Map<Long, Paciente> pacientes, Catalogos catalogos) {
+        List<Cita> citas = new ArrayList<>(filas.size());
+        for (Object[] fila : filas) {
+            Long idCita = (Long) fila[0];
+            Paciente paciente = pacientes.get((Long) fila[1]);
+            Medico medico = catalogos.medicos().get((Long) fila[2]);
+            Sala sala = catalogos.salas().get((Long) fila[3]);
+            if (paciente == null || medico == null || sala == null) {
+                throw new IllegalStateException("La cita " + idCita + " referencia un paciente, médico o sala inexistente");
+            }
+            Cita cita = Cita.builder()
+                    .paciente(paciente)
+                    .medico(medico)
+                    .sala(sala)
+                    .fechaHora((LocalDateTime) fila[4])
+                    .costo((BigDecimal) fila[5])
+                    .estado((EstadoCita) fila[6])
+                    .observaciones((String) fila[7])
+                    .build();
+            cita.setIdCita(idCita);
+            citas.add(cita);
+        }
+        return citas;
+    }
+}
@@ -0,0 +1,211 @@
+package org.example.Servicio;
+
+import org.example.entidades.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Asigna automáticamente médico y sala para una especialidad: elige el médico menos cargado
+ * de esa especialidad en el hospital del paciente y una sala libre de su departamento.
+ *
+ * <p>Cada (hospital, especialidad) tiene un heap de carga (citas que ocupan turno) que se
+ * actualiza en forma incremental al programar y al cancelar, sin recorrer agendas: cada cambio
+ * de carga agrega una entrada nueva en O(log n) y las viejas se descartan al extraerlas
+ * (borrado perezoso).</p>
+ *
+ * <p>El estado se protege con el mismo bloqueo del {@link CitaManager}: los avisos de
+ * programación y cambio de estado ya llegan dentro de ese bloqueo.</p>
+ */
+public class AsignadorCitas implements CitaObservador {
+
+    private record Clave(Hospital hospital, EspecialidadMedica especialidad) {
+    }
+
+    // version distingue la entrada vigente de un médico de las que quedaron viejas en el heap
+    private record Entrada(Medico medico, int carga, long orden, long version) {
+    }
+
+    private static final Comparator<Entrada> POR_CARGA =
+            Comparator.comparingInt(Entrada::carga).thenComparingLong(Entrada::orden);
+
+    private final CitaManager citaManager;
+    private final Map<Clave, PriorityQueue<Entrada>> heaps = new HashMap<>();
+    private final Map<Medico, Integer> cargas = new HashMap<>();
+    private final Map<Medico, Long> versiones = new HashMap<>();
+    private final Map<Medico, Long> ordenRegistro = new HashMap<>();
+    private final Map<Clave, Integer> medicosPorClave = new HashMap<>();
+
+    public AsignadorCitas(CitaManager citaManager) {
+        this.citaManager = Objects.requireNonNull(citaManager, "El CitaManager no puede ser nulo");
+        citaManager.agregarObservador(this);
+    }
+
+    /**
+     * Registra los médicos de todos los departamentos del hospital, con la carga que ya tienen en el manager.
+     */
+    public void registrarHospital(Hospital hospital) {
+        synchronized (citaManager) {
+            for (Departamento departamento : hospital.getDepartamentos()) {
+                for (Medico medico : departamento.getMedicos()) {
+                    registrarMedico(medico);
+                }
+            }
+        }
+    }
+
+    public void registrarMedico(Medico medico) {
+        synchronized (citaManager) {
+            Departamento departamento = Objects.requireNonNull(medico.getDepartamento(),
+                    "El médico debe pertenecer a un departamento");
+            if (ordenRegistro.containsKey(medico)) {
+                return;
+            }
+            int carga = 0;
+            for (Cita cita : citaManager.getCitasPorMedico(medico)) {
+                if (CitaManager.ocupaTurno(cita)) {
+                    carga++;
+                }
+            }
+            Clave clave = new Clave(departamento.getHospital(), medico.getEspecialidad());
+            ordenRegistro.put(medico, (long) ordenRegistro.size());
+            cargas.put(medico, carga);
+            versiones.put(medico, 0L);
+            medicosPorClave.merge(clave, 1, Integer::sum);
+            heaps.computeIfAbsent(clave, c -> new PriorityQueue<>(POR_CARGA))
+                    .add(new Entrada(medico, carga, ordenRegistro.get(medico), 0L));
+        }
+    }
+
+    public int getCarga(Medico medico) {
+        synchronized (citaManager) {
+            return cargas.getOrDefault(medico, 0);
+        }
+    }
+
+    /**
+     * Programa una cita con el médico menos cargado de la especialidad en el hospital del paciente,
+     * en el primer turno libre de [desde, hasta) en el que también haya una sala libre de su departamento.
+     * Los turnos candidatos son los de la grilla de {@link CitaManager#DURACION_CITA} a partir del
+     * primer inicio de turno igual o posterior a {@code desde}.
+     */
+    public Cita asignar(Paciente paciente, EspecialidadMedica especialidad,
+                        LocalDateTime desde, LocalDateTime hasta, BigDecimal costo) throws CitaException {
+        Objects.requireNonNull(paciente, "El paciente no puede ser nulo");
+        Objects.requireNonNull(especialidad, "La especialidad no puede ser nula");
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new CitaException("La ventana horaria solicitada es inválida.");
+        }
+        if (paciente.getHospital() == null) {
+            throw new CitaException("El paciente no tiene un hospital asignado.");
+        }
+
+        synchronized (citaManager) {
+            PriorityQueue<Entrada> heap = heaps.get(new Clave(paciente.getHospital(), especialidad));
+            if (heap == null) {
+                throw new CitaException("No hay médicos de " + especialidad.getDescripcion() + " en el hospital del paciente.");
+            }
+            // Se extraen candidatos en orden de carga y al final se devuelven al heap
+            List<Entrada> revisadas = new ArrayList<>();
+            try {
+                Entrada entrada;
+                while ((entrada = extraerVigente(heap)) != null) {
+                    revisadas.add(entrada);
+                    Cita cita = intentarAgendar(paciente, entrada.medico(), desde, hasta, costo);
+                    if (cita != null) {
+                        return cita;
+                    }
+                }
+            } finally {
+                for (Entrada revisada : revisadas) {
+                    // La carga del médico asignado ya se actualizó desde alProgramar
+                    if (esVigente(revisada)) {
+                        heap.add(revisada);
+                    }
+                }
+            }
+        }
+        throw new CitaException("No hay médicos de " + especialidad.getDescripcion()
+                + " con turno y sala libres en la ventana solicitada.");
+    }
+
+    private Cita intentarAgendar(Paciente paciente, Medico medico, LocalDateTime desde,
+                                 LocalDateTime hasta, BigDecimal costo) throws CitaException {
+        List<Sala> salas = medico.getDepartamento().getSalas();
+        for (LocalDateTime turno = CitaManager.primerTurnoDesde(desde); turno.isBefore(hasta); turno = turno.plus(CitaManager.DURACION_CITA)) {
+            if (!citaManager.esMedicoDisponible(medico, turno)) {
+                continue;
+            }
+            for (Sala sala : salas) {
+                if (citaManager.esSalaDisponible(sala, turno)) {
+                    return citaManager.programarCita(paciente, medico, sala, turno, costo);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Entrada extraerVigente(PriorityQueue<Entrada> heap) {
+        Entrada entrada;
+        while ((entrada = heap.poll()) != null) {
+            if (esVigente(entrada)) {
+                return entrada;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void alProgramar(Cita cita) {
+        if (CitaManager.ocupaTurno(cita)) {
+            actualizarCarga(cita.getMedico(), 1);
+        }
+    }
+
+    @Override
+    public void alCambiarEstado(Cita cita, EstadoCita anterior) {
+        boolean ocupabaTurno = anterior == EstadoCita.PROGRAMADA || anterior == EstadoCita.EN_CURSO;
+        if (ocupabaTurno && !CitaManager.ocupaTurno(cita)) {
+            actualizarCarga(cita.getMedico(), -1);
+        }
+    }
+
+    private void actualizarCarga(Medico medico, int delta) {
+        Integer actual = cargas.get(medico);
+        if (actual == null) {
+            return;
+        }
+        int nueva = Math.max(0, actual + delta);
+        long version = versiones.merge(medico, 1L, Long::sum);
+        cargas.put(medico, nueva);
+        Clave clave = new Clave(medico.getDepartamento().getHospital(), medico.getEspecialidad());
+        PriorityQueue<Entrada> heap = heaps.get(clave);
+        heap.add(new Entrada(medico, nueva, ordenRegistro.get(medico), version));
+        if (heap.size() > 2 * medicosPorClave.get(clave) + 16) {
+            compactar(heap);
+        }
+    }
+
+    private boolean esVigente(Entrada entrada) {
+        return versiones.get(entrada.medico()) == entrada.version();
+    }
+
+    // Descarta las entradas viejas para que el heap no crezca sin límite
+    private void compactar(PriorityQueue<Entrada> heap) {
+        List<Entrada> vigentes = new ArrayList<>(heap.size());
+        for (Entrada entrada : heap) {
+            if (esVigente(entrada)) {
+                vigentes.add(entrada);
+            }
+        }
+        heap.clear();
+        heap.addAll(vigentes);
+    }
+}
@@ -0,0 +1,231 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+import org.example.entidades.EstadoCita;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bus de eventos de citas en proceso sobre un buffer circular acotado y preasignado.
+ * Publicar solo reserva una secuencia con CAS y escribe en una ranura existente, así que
+ * los efectos secundarios (notificaciones, analítica) salen del camino de la reserva.
+ * Un único hilo consumidor entrega los eventos en lotes y en orden de publicación, lo que
+ * conserva el orden de los eventos de cada cita.
+ *
+ * <p>Cuando el buffer se llena, la política de contrapresión decide: BLOQUEAR espera lugar
+ * (y demora a quien publica), DESCARTAR pierde el evento, y MUESTREAR, a partir de la mitad
+ * de ocupación, solo acepta los eventos de una de cada {@code tasaMuestreo} citas, de modo
+ * que las citas muestreadas conservan todos sus eventos. Los eventos que llegan como observador
+ * del {@link CitaManager} nunca esperan: llegan dentro de su bloqueo y un consumidor lento
+ * frenaría todas las reservas, así que con BLOQUEAR y el buffer lleno se descartan.</p>
+ */
+public class BusEventosCita implements CitaObservador, AutoCloseable {
+
+    public enum Contrapresion {
+        BLOQUEAR,
+        DESCARTAR,
+        MUESTREAR
+    }
+
+    private static final long ESPERA_NANOS = 50_000L;
+    // Marca en proximaSecuencia de que el consumidor terminó: desde ahí ninguna reserva de secuencia prospera
+    private static final long CERRADO = Long.MIN_VALUE;
+
+    private final EventoCita[] ranuras;
+    // Secuencia publicada en cada ranura; la escritura volátil publica el contenido de la ranura
+    private final AtomicLongArray publicadas;
+    private final int mascara;
+    private final int tamanoLote;
+    private final Contrapresion politica;
+    private final int tasaMuestreo;
+
+    private final AtomicLong proximaSecuencia = new AtomicLong();
+    private volatile long consumidas;
+    private volatile boolean activo = true;
+    private final AtomicLong descartados = new AtomicLong();
+    private final AtomicLong entregados = new AtomicLong();
+
+    private final List<ConsumidorEventosCita> consumidores = new CopyOnWriteArrayList<>();
+    private final VistaLote vista = new VistaLote();
+    private final Thread hiloConsumidor;
+
+    /**
+     * @param capacidad    cantidad de ranuras; se redondea a la siguiente potencia de dos
+     * @param tamanoLote   máximo de eventos por entrega
+     * @param politica     qué hacer con el buffer lleno
+     * @param tasaMuestreo con MUESTREAR, se conserva una de cada tasaMuestreo citas
+     */
+    public BusEventosCita(CitaManager citaManager, int capacidad, int tamanoLote,
+                          Contrapresion politica, int tasaMuestreo) {
+        if (capacidad <= 0 || tamanoLote <= 0 || tasaMuestreo <= 0) {
+            throw new IllegalArgumentException("Capacidad, tamaño de lote y tasa de muestreo deben ser positivos");
+        }
+        int tamano = Integer.highestOneBit(capacidad);
+        if (tamano < capacidad) {
+            tamano <<= 1;
+        }
+        this.ranuras = new EventoCita[tamano];
+        this.publicadas = new AtomicLongArray(tamano);
+        for (int i = 0; i < tamano; i++) {
+            ranuras[i] = new EventoCita();
+            publicadas.set(i, -1L);
+        }
+        this.mascara = tamano - 1;
+        this.tamanoLote = tamanoLote;
+        this.politica = Objects.requireNonNull(politica, "La política no puede ser nula");
+        this.tasaMuestreo = tasaMuestreo;
+
+        this.hiloConsumidor = new Thread(this::consumir, "bus-eventos-cita");
+        this.hiloConsumidor.setDaemon(true);
+        this.hiloConsumidor.start();
+        if (citaManager != null) {
+            citaManager.agregarObservador(this);
+        }
+    }
+
+    public void suscribir(ConsumidorEventosCita consumidor) {
+        consumidores.add(Objects.requireNonNull(consumidor, "El consumidor no puede ser nulo"));
+    }
+
+    @Override
+    public void alProgramar(Cita cita) {
+        publicar(EventoCita.Tipo.PROGRAMADA, cita, false);
+    }
+
+    @Override
+    public void alCambiarEstado(Cita cita, EstadoCita anterior) {
+        publicar(EventoCita.Tipo.desde(cita.getEstado()), cita, false);
+    }
+
+    /**
+     * Publica un evento. Devuelve false si la política de contrapresión lo descartó o el bus está cerrado.
+     * No debe llamarse con el bloqueo del {@link CitaManager} tomado si la política es BLOQUEAR.
+     */
+    public boolean publicar(EventoCita.Tipo tipo, Cita cita) {
+        return publicar(tipo, cita, true);
+    }
+
+    private boolean publicar(EventoCita.Tipo tipo, Cita cita, boolean puedeEsperar) {
+        long secuencia;
+        while (true) {
+            secuencia = proximaSecuencia.get();
+            if (!activo || secuencia < 0) {
+                return false;
+            }
+            long ocupadas = secuencia - consumidas;
+            if (ocupadas >= ranuras.length) {
+                if (politica == Contrapresion.BLOQUEAR && puedeEsperar) {
+                    LockSupport.parkNanos(ESPERA_NANOS);
+                    continue;
+                }
+                descartados.incrementAndGet();
+                return false;
+            }
+            if (politica == Contrapresion.MUESTREAR && ocupadas >= ranuras.length / 2 && !enMuestra(cita)) {
+                descartados.incrementAndGet();
+                return false;
+            }
+            if (proximaSecuencia.compareAndSet(secuencia, secuencia + 1)) {
+                break;
+            }
+        }
+        int indice = (int) (secuencia & mascara);
+        ranuras[indice].cargar(secuencia, tipo, cita, System.currentTimeMillis());
+        publicadas.set(indice, secuencia);
+        return true;
+    }
+
+    // Misma decisión para todos los eventos de una cita
+    private boolean enMuestra(Cita cita) {
+        return Math.floorMod(System.identityHashCode(cita), tasaMuestreo) == 0;
+    }
+
+    private void consumir() {
+        long siguiente = 0;
+        while (true) {
+            int disponibles = 0;
+            while (disponibles < tamanoLote
+                    && publicadas.get((int) ((siguiente + disponibles) & mascara)) == siguiente + disponibles) {
+                disponibles++;
+            }
+            if (disponibles == 0) {
+                // Se sella la secuencia con CAS: si un publicador ya reservó la siguiente, el CAS falla
+                // y su evento se entrega en la próxima vuelta en lugar de perderse
+                if (!activo && proximaSecuencia.compareAndSet(siguiente, siguiente | CERRADO)) {
+                    return;
+                }
+                LockSupport.parkNanos(ESPERA_NANOS);
+                continue;
+            }
+
+            vista.apuntar(siguiente, disponibles);
+            for (ConsumidorEventosCita consumidor : consumidores) {
+                try {
+                    consumidor.procesar(vista);
+                } catch (RuntimeException e) {
+                    System.err.println("Error en consumidor de eventos de citas: " + e.getMessage());
+                }
+            }
+            for (int i = 0; i < disponibles; i++) {
+                ranuras[(int) ((siguiente + i) & mascara)].limpiar();
+            }
+            siguiente += disponibles;
+            consumidas = siguiente;
+            entregados.addAndGet(disponibles);
+        }
+    }
+
+    /**
+     * Deja de aceptar eventos, entrega los pendientes y espera al hilo consumidor.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        activo = false;
+        hiloConsumidor.join();
+    }
+
+    public long getPublicados() {
+        return proximaSecuencia.get() & ~CERRADO;
+    }
+
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    public long getEntregados() {
+        return entregados.get();
+    }
+
+    public long getPendientes() {
+        return getPublicados() - consumidas;
+    }
+
+    // Vista reutilizable sobre un tramo del buffer, para no crear listas en cada entrega
+    private final class VistaLote extends AbstractList<EventoCita> implements RandomAccess {
+        private long inicio;
+        private int tamano;
+
+        void apuntar(long inicio, int tamano) {
+            this.inicio = inicio;
+            this.tamano = tamano;
+        }
+
+        @Override
+        public EventoCita get(int i) {
+            Objects.checkIndex(i, tamano);
+            return ranuras[(int) ((inicio + i) & mascara)];
+        }
+
+        @Override
+        public int size() {
+            return tamano;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entidades.Departamento;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.TipoSangre;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Búsqueda de donantes de sangre compatibles entre pacientes y médicos. Por hospital se mantiene un
+ * {@link BitSet} de ids por tipo de sangre, así que buscar donantes es unir los conjuntos de los tipos
+ * que marca {@link TipoSangre#mascaraDonantes()}, sin tocar la base.
+ *
+ * <p>El índice se arma una vez con {@link #recargar()} (dos consultas escalares) y después se mantiene
+ * con {@link #registrar} y {@link #quitar} a medida que se dan de alta, cambian o se van personas.
+ * Los médicos pertenecen al hospital de su departamento. Los ids tienen que entrar en un {@code int}.</p>
+ */
+public class BuscadorDonantes {
+
+    public enum TipoDonante {
+        MEDICO,
+        PACIENTE
+    }
+
+    public record Donante(TipoDonante tipo, long id, TipoSangre tipoSangre, Long idHospital) {
+    }
+
+    private static final TipoSangre[] TIPOS = TipoSangre.values();
+
+    // Para cada receptor, sus donantes compatibles en orden de preferencia: primero el mismo tipo y
+    // después los que sirven a menos receptores, para no gastar O- si hay otro tipo compatible
+    private static final TipoSangre[][] PREFERENCIA = new TipoSangre[TIPOS.length][];
+
+    static {
+        for (TipoSangre receptor : TIPOS) {
+            PREFERENCIA[receptor.ordinal()] = Arrays.stream(TIPOS)
+                    .filter(donante -> donante.puedeDonarA(receptor))
+                    .sorted(Comparator.comparingInt((TipoSangre donante) -> donante == receptor ? 0 : 1)
+                            .thenComparingInt(donante -> Integer.bitCount(donante.mascaraReceptores())))
+                    .toArray(TipoSangre[]::new);
+        }
+    }
+
+    // Ids por tipo de donante y tipo de sangre dentro de un hospital
+    private static final class Indice {
+        final BitSet[][] ids = new BitSet[TipoDonante.values().length][TIPOS.length];
+
+        Indice() {
+            for (BitSet[] porTipo : ids) {
+                for (int i = 0; i < porTipo.length; i++) {
+                    porTipo[i] = new BitSet();
+                }
+            }
+        }
+    }
+
+    private final EntityManagerFactory emf;
+    // La clave null agrupa a los que no tienen hospital
+    private final Map<Long, Indice> porHospital = new HashMap<>();
+
+    public BuscadorDonantes(EntityManagerFactory emf) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+    }
+
+    /**
+     * Reemplaza el índice con lo que hay en la base.
+     */
+    public void recargar() {
+        Map<Long, Indice> nuevo = new HashMap<>();
+        EntityManager em = emf.createEntityManager();
+        try (Stream<Object[]> pacientes = em.createQuery(
+                     "SELECT p.id, p.tipoSangre, h.idHospital FROM Paciente p LEFT JOIN p.hospital h", Object[].class)
+                .setHint("org.hibernate.fetchSize", 1_000)
+                .getResultStream();
+             Stream<Object[]> medicos = em.createQuery(
+                     "SELECT m.idMedico, m.tipoSangre, h.idHospital FROM Medico m "
+                             + "LEFT JOIN m.departamento d LEFT JOIN d.hospital h", Object[].class)
+                     .getResultStream()) {
+            pacientes.forEach(fila -> agregar(nuevo, TipoDonante.PACIENTE, (Long) fila[0], (TipoSangre) fila[1], (Long) fila[2]));
+            medicos.forEach(fila -> agregar(nuevo, TipoDonante.MEDICO, (Long) fila[0], (TipoSangre) fila[1], (Long) fila[2]));
+        } finally {
+            em.close();
+        }
+        synchronized (porHospital) {
+            porHospital.clear();
+            porHospital.putAll(nuevo);
+        }
+    }
+
+    /**
+     * Alta o cambio (de tipo de sangre o de hospital) de una persona.
+     */
+    public void registrar(TipoDonante tipo, long id, TipoSangre tipoSangre, Long idHospital) {
+        Objects.requireNonNull(tipo, "El tipo de donante no puede ser nulo");
+        Objects.requireNonNull(tipoSangre, "El tipo de sangre no puede ser nulo");
+        synchronized (porHospital) {
+            quitarSinBloqueo(tipo, indice(id));
+            agregar(porHospital, tipo, id, tipoSangre, idHospital);
+        }
+    }
+
+    public void registrar(Paciente paciente) {
+        registrar(TipoDonante.PACIENTE, paciente.getId(), paciente.getTipoSangre(),
+                paciente.getHospital() != null ? paciente.getHospital().getIdHospital() : null);
+    }
+
+    public void registrar(Medico medico) {
+        Departamento departamento = medico.getDepartamento();
+        registrar(TipoDonante.MEDICO, medico.getIdMedico(), medico.getTipoSangre(),
+                departamento != null && departamento.getHospital() != null
+                        ? departamento.getHospital().getIdHospital() : null);
+    }
+
+    public void quitar(TipoDonante tipo, long id) {
+        synchronized (porHospital) {
+            quitarSinBloqueo(tipo, indice(id));
+        }
+    }
+
+    /**
+     * Ids de pacientes o médicos del hospital que pueden donarle al receptor: la unión de los conjuntos
+     * de los tipos compatibles.
+     */
+    public BitSet compatibles(TipoSangre receptor, TipoDonante tipo, Long idHospital) {
+        BitSet resultado = new BitSet();
+        int mascara = receptor.mascaraDonantes();
+        synchronized (porHospital) {
+            Indice indice = porHospital.get(idHospital);
+            if (indice != null) {
+                for (int t = 0; t < TIPOS.length; t++) {
+                    if ((mascara & (1 << t)) != 0) {
+                        resultado.or(indice.ids[tipo.ordinal()][t]);
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Donantes compatibles del hospital, los más convenientes primero: por tipo de sangre según la
+     * preferencia (mismo tipo primero, O- último) y, dentro de cada tipo, los médicos antes que los pacientes.
+     */
+    public List<Donante> buscar(TipoSangre receptor, Long idHospital, int limite) {
+        List<Donante> resultado = new ArrayList<>(Math.min(limite, 256));
+        synchronized (porHospital) {
+            agregarDonantes(resultado, receptor, idHospital, limite);
+        }
+        return resultado;
+    }
+
+    /**
+     * Como {@link #buscar}, pero si en el hospital no alcanza sigue por el resto de la red.
+     */
+    public List<Donante> buscarEnRed(TipoSangre receptor, Long idHospital, int limite) {
+        List<Donante> resultado = new ArrayList<>(Math.min(limite, 256));
+        synchronized (porHospital) {
+            agregarDonantes(resultado, receptor, idHospital, limite);
+            for (Long otro : porHospital.keySet()) {
+                if (resultado.size() >= limite) {
+                    break;
+                }
+                if (!Objects.equals(otro, idHospital)) {
+                    agregarDonantes(resultado, receptor, otro, limite);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private void agregarDonantes(List<Donante> resultado, TipoSangre receptor, Long idHospital, int limite) {
+        Indice indice = porHospital.get(idHospital);
+        if (indice == null) {
+            return;
+        }
+        for (TipoSangre donante : PREFERENCIA[receptor.ordinal()]) {
+            for (TipoDonante tipo : TipoDonante.values()) {
+                BitSet ids = indice.ids[tipo.ordinal()][donante.ordinal()];
+                for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                    if (resultado.size() >= limite) {
+                        return;
+                    }
+                    resultado.add(new Donante(tipo, id, donante, idHospital));
+                }
+            }
+        }
+    }
+
+    private static void agregar(Map<Long, Indice> indices, TipoDonante tipo, long id, TipoSangre tipoSangre,
+                                Long idHospital) {
+        indices.computeIfAbsent(idHospital, h -> new Indice()).ids[tipo.ordinal()][tipoSangre.ordinal()].set(indice(id));
+    }
+
+    // No se guarda dónde está cada id: se limpia el bit en todos los conjuntos, que son pocos
+    private void quitarSinBloqueo(TipoDonante tipo, int id) {
+        for (Indice indice : porHospital.values()) {
+            for (BitSet ids : indice.ids[tipo.ordinal()]) {
+                ids.clear(id);
+            }
+        }
+    }
+
+    private static int indice(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Id fuera de rango para el índice de donantes: " + id);
+        }
+        return (int) id;
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entidades.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Carga masiva de los datos de {@link GeneradorDatos}. Cada hospital se carga en su propio hilo
+ * con una {@link StatelessSession} (sin contexto de persistencia ni dirty checking) y con una
+ * transacción por lote. Las citas, que son la tabla más grande, se insertan con batches JDBC.
+ * Los tipos de sala se resuelven contra el {@link CatalogoClinico} antes de insertar las salas.
+ */
+public class CargadorMasivo {
+
+    private static final String INSERT_CITA =
+            "INSERT INTO cita_tabla (paciente_id, medico_id, sala_id, fecha_hora, costo, estado, observaciones, "
+                    + "version, bloque_par, bloque_impar) VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, ?)";
+
+    private final SessionFactory sessionFactory;
+    private final CatalogoClinico catalogo;
+    private final int hilos;
+    private final int tamanoLote;
+
+    public CargadorMasivo(EntityManagerFactory emf, int hilos, int tamanoLote) {
+        this.sessionFactory = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo")
+                .unwrap(SessionFactory.class);
+        this.catalogo = new CatalogoClinico(emf);
+        if (hilos <= 0 || tamanoLote <= 0) {
+            throw new IllegalArgumentException("Los hilos y el tamaño de lote deben ser mayores que cero");
+        }
+        this.hilos = hilos;
+        this.tamanoLote = tamanoLote;
+    }
+
+    public record Resumen(long hospitales, long medicos, long pacientes, long citas, Duration duracion) {
+        Resumen sumar(Resumen otro) {
+            return new Resumen(hospitales + otro.hospitales, medicos + otro.medicos,
+                    pacientes + otro.pacientes, citas + otro.citas, duracion);
+        }
+    }
+
+    public Resumen cargar(GeneradorDatos generador) throws InterruptedException {
+        long inicio = System.nanoTime();
+        int hospitales = generador.getEscala().hospitales();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(hilos, hospitales));
+        try {
+            List<Future<Resumen>> tareas = new ArrayList<>(hospitales);
+            for (int h = 0; h < hospitales; h++) {
+                int indice = h;
+                tareas.add(pool.submit(() -> cargarHospital(generador, indice)));
+            }
+
+            Resumen total = new Resumen(0, 0, 0, 0, Duration.ZERO);
+            for (Future<Resumen> tarea : tareas) {
+                total = total.sumar(tarea.get());
+            }
+            return new Resumen(total.hospitales(), total.medicos(), total.pacientes(), total.citas(),
+                    Duration.ofNanos(System.nanoTime() - inicio));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la carga masiva: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Resumen cargarHospital(GeneradorDatos generador, int indice) {
+        // El hospital y todo lo que cuelga de él solo vive mientras dura esta tarea
+        Hospital hospital = generador.generarHospital(indice, catalogo::tipoSala);
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            long medicos = enTransaccion(session, () -> insertarEstructura(session, hospital));
+
+            int totalPacientes = generador.cantidadPacientes(indice);
+            List<Paciente> pacientes = new ArrayList<>(totalPacientes);
+            for (int desde = 0; desde < totalPacientes; desde += tamanoLote) {
+                List<Paciente> lote = generador.generarPacientes(hospital, indice, desde,
+                        Math.min(tamanoLote, totalPacientes - desde));
+                enTransaccion(session, () -> {
+                    for (Paciente paciente : lote) {
+                        session.insert(paciente);
+                        session.insert(paciente.getHistoriaClinica());
+                    }
+                    return lote.size();
+                });
+                pacientes.addAll(lote);
+            }
+
+            Iterator<Cita> citas = generador.generarCitas(hospital, indice, pacientes);
+            long totalCitas = 0;
+            while (citas.hasNext()) {
+                totalCitas += enTransaccion(session, () -> insertarLoteCitas(session, citas));
+            }
+
+            System.out.println("Hospital " + hospital.getNombre() + " cargado: " + medicos + " médicos, "
+                    + pacientes.size() + " pacientes, " + totalCitas + " citas");
+            return new Resumen(1, medicos, pacientes.size(), totalCitas, Duration.ZERO);
+        }
+    }
+
+    private long insertarEstructura(StatelessSession session, Hospital hospital) {
+        long medicos = 0;
+        session.insert(hospital);
+        for (Departamento departamento : hospital.getDepartamentos()) {
+            session.insert(departamento);
+            for (Sala sala : departamento.getSalas()) {
+                session.insert(sala);
+            }
+            for (Medico medico : departamento.getMedicos()) {
+                session.insert(medico);
+                medicos++;
+            }
+        }
+        return medicos;
+    }
+
+    private long insertarLoteCitas(StatelessSession session, Iterator<Cita> citas) {
+        long[] insertadas = {0};
+        session.doWork(conexion -> {
+            try (PreparedStatement ps = conexion.prepareStatement(INSERT_CITA)) {
+                while (insertadas[0] < tamanoLote && citas.hasNext()) {
+                    Cita cita = citas.next();
+                    ps.setLong(1, cita.getPaciente().getId());
+                    ps.setLong(2, cita.getMedico().getIdMedico());
+                    ps.setLong(3, cita.getSala().getIdSala());
+                    ps.setObject(4, cita.getFechaHora());
+                    ps.setBigDecimal(5, cita.getCosto());
+                    ps.setString(6, cita.getEstado().name());
+                    ps.setString(7, cita.getObservaciones());
+                    ps.setObject(8, cita.getBloquePar(), Types.BIGINT);
+                    ps.setObject(9, cita.getBloqueImpar(), Types.BIGINT);
+                    ps.addBatch();
+                    insertadas[0]++;
+                }
+                ps.executeBatch();
+            }
+        });
+        return insertadas[0];
+    }
+
+    private interface Trabajo {
+        long ejecutar();
+    }
+
+    private long enTransaccion(StatelessSession session, Trabajo trabajo) {
+        Transaction tx = session.beginTransaction();
+        try {
+            long resultado = trabajo.ejecutar();
+            tx.commit();
+            return resultado;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        }
+    }
+}
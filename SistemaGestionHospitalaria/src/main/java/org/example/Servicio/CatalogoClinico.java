@@ -0,0 +1,170 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceException;
+import org.example.entidades.EntradaCatalogo;
+import org.example.entidades.TipoCatalogo;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catálogos de diagnósticos, tratamientos y tipos de sala en memoria. Cada valor existe una sola vez
+ * en la tabla {@code catalogo} y una sola vez en el heap: las historias clínicas y las salas apuntan
+ * a la misma {@link EntradaCatalogo}, y en la base solo guardan su id entero.
+ *
+ * <p>{@link #obtener} normaliza el texto, lo busca en la caché y, si no está, en la base; si tampoco
+ * existe lo da de alta. Las altas se serializan para no duplicar entradas entre hilos, y si otro proceso
+ * la dio de alta primero se toma la suya. Las entradas de la caché están desasociadas.</p>
+ */
+public class CatalogoClinico {
+
+    private record Clave(TipoCatalogo tipo, String descripcion) {
+    }
+
+    private final EntityManagerFactory emf;
+    private final Map<Clave, EntradaCatalogo> porDescripcion = new ConcurrentHashMap<>();
+    private final Map<Integer, EntradaCatalogo> porId = new ConcurrentHashMap<>();
+
+    public CatalogoClinico(EntityManagerFactory emf) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+    }
+
+    /**
+     * Trae todos los catálogos en una consulta. Es opcional: sin esto se cargan a medida que se piden.
+     */
+    public void cargar() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.createQuery("SELECT e FROM EntradaCatalogo e", EntradaCatalogo.class)
+                    .setHint("org.hibernate.readOnly", true)
+                    .getResultStream()
+                    .forEach(this::cachear);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * La entrada con esa descripción, dándola de alta si todavía no existe.
+     */
+    public EntradaCatalogo obtener(TipoCatalogo tipo, String descripcion) {
+        Clave clave = clave(tipo, descripcion);
+        EntradaCatalogo entrada = porDescripcion.get(clave);
+        if (entrada != null) {
+            return entrada;
+        }
+        synchronized (this) {
+            Optional<EntradaCatalogo> existente = buscarEnBase(clave);
+            if (existente.isPresent()) {
+                return existente.get();
+            }
+            try {
+                return cachear(insertar(clave));
+            } catch (PersistenceException e) {
+                // Otro proceso la dio de alta entre la búsqueda y el insert
+                return buscarEnBase(clave).orElseThrow(() -> e);
+            }
+        }
+    }
+
+    public EntradaCatalogo diagnostico(String descripcion) {
+        return obtener(TipoCatalogo.DIAGNOSTICO, descripcion);
+    }
+
+    public EntradaCatalogo tratamiento(String descripcion) {
+        return obtener(TipoCatalogo.TRATAMIENTO, descripcion);
+    }
+
+    public EntradaCatalogo tipoSala(String descripcion) {
+        return obtener(TipoCatalogo.TIPO_SALA, descripcion);
+    }
+
+    /**
+     * La entrada con esa descripción si existe, sin darla de alta.
+     */
+    public Optional<EntradaCatalogo> buscar(TipoCatalogo tipo, String descripcion) {
+        Clave clave = clave(tipo, descripcion);
+        EntradaCatalogo entrada = porDescripcion.get(clave);
+        return entrada != null ? Optional.of(entrada) : buscarEnBase(clave);
+    }
+
+    public Optional<EntradaCatalogo> porId(Integer id) {
+        Objects.requireNonNull(id, "El id no puede ser nulo");
+        EntradaCatalogo entrada = porId.get(id);
+        if (entrada != null) {
+            return Optional.of(entrada);
+        }
+        EntityManager em = emf.createEntityManager();
+        try {
+            return Optional.ofNullable(em.find(EntradaCatalogo.class, id)).map(this::cachear);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Las entradas de un tipo que ya están en memoria, ordenadas por descripción.
+     */
+    public List<EntradaCatalogo> listar(TipoCatalogo tipo) {
+        return porId.values().stream()
+                .filter(entrada -> entrada.getTipo() == tipo)
+                .sorted(Comparator.comparing(EntradaCatalogo::getDescripcion))
+                .toList();
+    }
+
+    public int getTamano() {
+        return porId.size();
+    }
+
+    private static Clave clave(TipoCatalogo tipo, String descripcion) {
+        return new Clave(Objects.requireNonNull(tipo, "El tipo de catálogo no puede ser nulo"),
+                EntradaCatalogo.normalizar(descripcion));
+    }
+
+    private Optional<EntradaCatalogo> buscarEnBase(Clave clave) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("SELECT e FROM EntradaCatalogo e WHERE e.tipo = :tipo AND e.descripcion = :descripcion",
+                            EntradaCatalogo.class)
+                    .setParameter("tipo", clave.tipo())
+                    .setParameter("descripcion", clave.descripcion())
+                    .getResultStream()
+                    .findFirst()
+                    .map(this::cachear);
+        } finally {
+            em.close();
+        }
+    }
+
+    private EntradaCatalogo insertar(Clave clave) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            EntradaCatalogo entrada = new EntradaCatalogo(clave.tipo(), clave.descripcion());
+            em.persist(entrada);
+            em.getTransaction().commit();
+            return entrada;
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    // Si ya había una instancia para el id se devuelve esa, así todas las referencias comparten el objeto
+    private EntradaCatalogo cachear(EntradaCatalogo entrada) {
+        EntradaCatalogo anterior = porId.putIfAbsent(entrada.getId(), entrada);
+        EntradaCatalogo canonica = anterior != null ? anterior : entrada;
+        porDescripcion.putIfAbsent(new Clave(canonica.getTipo(), canonica.getDescripcion()), canonica);
+        return canonica;
+    }
+}
@@ -1,24 +1,77 @@
 package org.example.Servicio;
 
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceUtil;
 import org.example.entidades.*;
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class CitaManager implements CitaService {
+    /** Duración de un turno: dos citas del mismo médico o sala deben estar a esta distancia. */
+    public static final Duration DURACION_CITA = Duration.ofHours(2);
+    private static final long SEGUNDOS_TURNO = DURACION_CITA.toSeconds();
+
+    private static final PersistenceUtil PERSISTENCIA = Persistence.getPersistenceUtil();
+    private static final int TRAMO_EXPORTACION = 10_000;
+    private static final List<String> COLUMNAS_EXPORTACION = List.of(
+            "dni_paciente", "dni_medico", "sala", "fecha_hora", "costo", "estado", "observaciones");
+
     private final List<Cita> citas = new ArrayList<>();
     private final Map<Paciente, List<Cita>> citasPorPaciente = new ConcurrentHashMap<>();
     private final Map<Medico, List<Cita>> citasPorMedico = new ConcurrentHashMap<>();
     private final Map<Sala, List<Cita>> citasPorSala = new ConcurrentHashMap<>();
+    // Agendas ordenadas con las citas que ocupan turno (programadas o en curso)
+    private final Map<Medico, NavigableMap<LocalDateTime, Cita>> agendaPorMedico = new ConcurrentHashMap<>();
+    private final Map<Sala, NavigableMap<LocalDateTime, Cita>> agendaPorSala = new ConcurrentHashMap<>();
+    private final List<CitaObservador> observadores = new CopyOnWriteArrayList<>();
+    // Citas pasadas de un arranque en caliente, agrupadas pero fuera de los índices: cada grupo se pasa a su
+    // índice la primera vez que se consulta esa clave. Protegidos por this
+    private final Map<Paciente, List<Cita>> historialPorPaciente = new HashMap<>();
+    private final Map<Medico, List<Cita>> historialPorMedico = new HashMap<>();
+    private final Map<Sala, List<Cita>> historialPorSala = new HashMap<>();
+    // Citas cuyo último cambio no llegó a la base (ver EscrituraDiferida). Protegido por this
+    private final Set<Cita> sinPersistir = new LinkedHashSet<>();
+
+    public void agregarObservador(CitaObservador observador) {
+        observadores.add(observador);
+    }
+
+    public void quitarObservador(CitaObservador observador) {
+        observadores.remove(observador);
+    }
 
     @Override
-    public Cita programarCita(Paciente paciente, Medico medico, Sala sala,
-                              LocalDateTime fechaHora, BigDecimal costo) throws CitaException {
+    public synchronized Cita programarCita(Paciente paciente, Medico medico, Sala sala,
+                                           LocalDateTime fechaHora, BigDecimal costo) throws CitaException {
 
         validarCita(fechaHora, costo);
 
@@ -34,6 +87,10 @@ public class CitaManager implements CitaService {
             throw new CitaException("La especialidad del médico no coincide con el departamento de la sala.");
         }
 
+        return crear(paciente, medico, sala, fechaHora, costo);
+    }
+
+    private Cita crear(Paciente paciente, Medico medico, Sala sala, LocalDateTime fechaHora, BigDecimal costo) {
         Cita cita = Cita.builder()
                 .paciente(paciente)
                 .medico(medico)
@@ -41,51 +98,242 @@ public class CitaManager implements CitaService {
                 .fechaHora(fechaHora)
                 .costo(costo)
                 .build();
-        citas.add(cita);
+        registrar(cita);
 
-        actualizarIndicePaciente(paciente, cita);
-        actualizarIndiceMedico(medico, cita);
-        actualizarIndiceSala(sala, cita);
-
-        paciente.addCita(cita);
-        medico.addCita(cita);
-        sala.addCita(cita);
+        // Con entidades leídas por JPA la colección puede no estar inicializada; el manager tiene sus propios índices
+        if (PERSISTENCIA.isLoaded(paciente, "citas")) {
+            paciente.addCita(cita);
+        }
+        if (PERSISTENCIA.isLoaded(medico, "citas")) {
+            medico.addCita(cita);
+        }
+        if (PERSISTENCIA.isLoaded(sala, "citas")) {
+            sala.addCita(cita);
+        }
 
+        for (CitaObservador observador : observadores) {
+            observador.alProgramar(cita);
+        }
         return cita;
     }
 
+    /**
+     * Programa una serie de citas con el mismo médico y sala. Las ocurrencias se verifican contra
+     * las agendas del médico y la sala en un único recorrido: se toma una sola vez el tramo de ambas
+     * agendas que cubre la serie y se avanza sobre él a medida que avanzan las fechas, así que el
+     * costo es O(log n + ocurrencias + citas del tramo) en lugar de una búsqueda por ocurrencia.
+     *
+     * @param todoONada si es true y alguna ocurrencia no encuentra turno, no se crea ninguna cita
+     */
+    public synchronized ResultadoSerie programarSerie(Paciente paciente, Medico medico, Sala sala,
+                                                      ReglaRecurrencia regla, BigDecimal costo,
+                                                      PoliticaConflicto politica, boolean todoONada)
+            throws CitaException {
+        Objects.requireNonNull(regla, "La regla de recurrencia no puede ser nula");
+        Objects.requireNonNull(politica, "La política de conflictos no puede ser nula");
+        List<LocalDateTime> fechas = regla.expandir();
+        if (fechas.isEmpty()) {
+            throw new CitaException("La serie no tiene ocurrencias.");
+        }
+        // Las ocurrencias repiten la hora de la primera y las corridas avanzan de turno en turno,
+        // así que si la primera está en la grilla todas lo están
+        validarCita(fechas.get(0), costo);
+        if (!medico.getEspecialidad().equals(sala.getDepartamento().getEspecialidad())) {
+            throw new CitaException("La especialidad del médico no coincide con el departamento de la sala.");
+        }
+
+        LocalDateTime ultima = fechas.get(fechas.size() - 1);
+        LocalDateTime hasta = politica == PoliticaConflicto.CORRER
+                ? ultima.toLocalDate().plusDays(1).atStartOfDay()
+                : ultima.plus(DURACION_CITA);
+        LocalDateTime[] ocupados = turnosOcupados(medico, sala, fechas.get(0).minus(DURACION_CITA), hasta);
+
+        List<ResultadoSerie.Ocurrencia> ocurrencias = new ArrayList<>(fechas.size());
+        int i = 0;
+        // Una ocurrencia corrida no puede pisar a la siguiente de la misma serie
+        LocalDateTime libreDesde = LocalDateTime.MIN;
+        boolean completa = true;
+        for (LocalDateTime solicitada : fechas) {
+            LocalDateTime finDia = solicitada.toLocalDate().plusDays(1).atStartOfDay();
+            LocalDateTime candidata = solicitada;
+            LocalDateTime asignada = null;
+            while (!candidata.plus(DURACION_CITA).isAfter(finDia) || candidata.equals(solicitada)) {
+                if (candidata.isBefore(libreDesde)) {
+                    if (politica == PoliticaConflicto.OMITIR) {
+                        break;
+                    }
+                    candidata = libreDesde;
+                    continue;
+                }
+                while (i < ocupados.length && !ocupados[i].plus(DURACION_CITA).isAfter(candidata)) {
+                    i++;
+                }
+                if (i == ocupados.length || !ocupados[i].isBefore(candidata.plus(DURACION_CITA))) {
+                    asignada = candidata;
+                    break;
+                }
+                if (politica == PoliticaConflicto.OMITIR) {
+                    break;
+                }
+                // Una fila vieja fuera de la grilla no debe sacar a la serie de ella
+                candidata = primerTurnoDesde(ocupados[i].plus(DURACION_CITA));
+            }
+            if (asignada == null) {
+                completa = false;
+            } else {
+                libreDesde = asignada.plus(DURACION_CITA);
+            }
+            ocurrencias.add(new ResultadoSerie.Ocurrencia(solicitada, asignada, null));
+        }
+
+        if (todoONada && !completa) {
+            return new ResultadoSerie(ocurrencias, false);
+        }
+        List<ResultadoSerie.Ocurrencia> creadas = new ArrayList<>(ocurrencias.size());
+        for (ResultadoSerie.Ocurrencia ocurrencia : ocurrencias) {
+            Cita cita = ocurrencia.isOmitida() ? null : crear(paciente, medico, sala, ocurrencia.asignada(), costo);
+            creadas.add(new ResultadoSerie.Ocurrencia(ocurrencia.solicitada(), ocurrencia.asignada(), cita));
+        }
+        return new ResultadoSerie(creadas, true);
+    }
+
+    // Inicios de los turnos ocupados del médico o la sala en [desde, hasta), combinados en orden
+    private LocalDateTime[] turnosOcupados(Medico medico, Sala sala, LocalDateTime desde, LocalDateTime hasta) {
+        Collection<LocalDateTime> delMedico = tramo(agendaPorMedico.get(medico), desde, hasta);
+        Collection<LocalDateTime> deLaSala = tramo(agendaPorSala.get(sala), desde, hasta);
+        LocalDateTime[] combinados = new LocalDateTime[delMedico.size() + deLaSala.size()];
+        Iterator<LocalDateTime> a = delMedico.iterator();
+        Iterator<LocalDateTime> b = deLaSala.iterator();
+        LocalDateTime x = a.hasNext() ? a.next() : null;
+        LocalDateTime y = b.hasNext() ? b.next() : null;
+        for (int k = 0; k < combinados.length; k++) {
+            if (y == null || (x != null && !x.isAfter(y))) {
+                combinados[k] = x;
+                x = a.hasNext() ? a.next() : null;
+            } else {
+                combinados[k] = y;
+                y = b.hasNext() ? b.next() : null;
+            }
+        }
+        return combinados;
+    }
+
+    private Collection<LocalDateTime> tramo(NavigableMap<LocalDateTime, Cita> agenda, LocalDateTime desde, LocalDateTime hasta) {
+        return agenda == null ? List.of() : agenda.subMap(desde, true, hasta, false).keySet();
+    }
+
+    @Override
+    public void avanzarCita(Cita cita) {
+        cambiarEstado(cita, estrategia -> estrategia.avanzar(cita));
+    }
+
+    @Override
+    public void cancelarCita(Cita cita) {
+        cambiarEstado(cita, estrategia -> estrategia.cancelar(cita));
+    }
+
+    @Override
+    public void marcarNoAsistio(Cita cita) {
+        cambiarEstado(cita, estrategia -> estrategia.marcarNoAsistio(cita));
+    }
+
+    private synchronized void cambiarEstado(Cita cita, Consumer<EstadoCitaStrategy> transicion) {
+        EstadoCita anterior = cita.getEstado();
+        transicion.accept(EstadoCitaFactory.getStrategy(cita));
+        if (!ocupaTurno(cita)) {
+            // Una cita cancelada, no asistida o completada libera el turno del médico y la sala
+            liberarTurno(agendaPorMedico.get(cita.getMedico()), cita);
+            liberarTurno(agendaPorSala.get(cita.getSala()), cita);
+        }
+        for (CitaObservador observador : observadores) {
+            observador.alCambiarEstado(cita, anterior);
+        }
+    }
+
+    static boolean ocupaTurno(Cita cita) {
+        return cita.getEstado() == EstadoCita.PROGRAMADA || cita.getEstado() == EstadoCita.EN_CURSO;
+    }
+
+    private void registrar(Cita cita) {
+        citas.add(cita);
+        actualizarIndicePaciente(cita.getPaciente(), cita);
+        actualizarIndiceMedico(cita.getMedico(), cita);
+        actualizarIndiceSala(cita.getSala(), cita);
+        if (ocupaTurno(cita)) {
+            agendaPorMedico.computeIfAbsent(cita.getMedico(), m -> new TreeMap<>()).put(cita.getFechaHora(), cita);
+            agendaPorSala.computeIfAbsent(cita.getSala(), s -> new TreeMap<>()).put(cita.getFechaHora(), cita);
+        }
+    }
+
+    private void liberarTurno(NavigableMap<LocalDateTime, Cita> agenda, Cita cita) {
+        if (agenda != null) {
+            agenda.remove(cita.getFechaHora(), cita);
+        }
+    }
+
     private void validarCita(LocalDateTime fechaHora, BigDecimal costo) throws CitaException {
         if (fechaHora.isBefore(LocalDateTime.now())) {
             throw new CitaException("No se puede programar una cita en el pasado.");
         }
 
+        if (!esInicioDeTurno(fechaHora)) {
+            throw new CitaException("La cita debe empezar al inicio de un turno (cada "
+                    + DURACION_CITA.toHours() + " horas desde las 00:00).");
+        }
+
         if (costo.compareTo(BigDecimal.ZERO) <= 0) {
             throw new CitaException("El costo debe ser mayor que cero.");
         }
+
+        // La columna guarda centavos: una fracción menor se redondearía sin aviso al persistir
+        if (costo.stripTrailingZeros().scale() > 2) {
+            throw new CitaException("El costo no puede tener fracciones de centavo.");
+        }
     }
 
-    private boolean esMedicoDisponible(Medico medico, LocalDateTime fechaHora) {
-        List<Cita> citasExistentes = citasPorMedico.get(medico);
-        if (citasExistentes != null) {
-            for (Cita citaExistente : citasExistentes) {
-                if (Math.abs(citaExistente.getFechaHora().compareTo(fechaHora)) < 2) { // 2 horas de diferencia
-                    return false;
-                }
-            }
+    /**
+     * Si {@code fechaHora} cae justo al inicio de un turno de la grilla de {@link #DURACION_CITA}
+     * contada desde las 00:00. Las citas solo empiezan ahí: así cada una ocupa un único bloque de
+     * {@link Cita#bloquesDe} y la restricción única de la base coincide con {@link #estaLibre}.
+     */
+    public static boolean esInicioDeTurno(LocalDateTime fechaHora) {
+        return fechaHora.getNano() == 0 && Math.floorMod(fechaHora.toEpochSecond(ZoneOffset.UTC), SEGUNDOS_TURNO) == 0;
+    }
+
+    /**
+     * Primer inicio de turno de la grilla igual o posterior a {@code fechaHora}.
+     */
+    public static LocalDateTime primerTurnoDesde(LocalDateTime fechaHora) {
+        if (esInicioDeTurno(fechaHora)) {
+            return fechaHora;
         }
-        return true;
+        long segundos = fechaHora.toEpochSecond(ZoneOffset.UTC);
+        long inicio = (Math.floorDiv(segundos, SEGUNDOS_TURNO) + 1) * SEGUNDOS_TURNO;
+        return LocalDateTime.ofEpochSecond(inicio, 0, ZoneOffset.UTC);
     }
 
-    private boolean esSalaDisponible(Sala sala, LocalDateTime fechaHora) {
-        List<Cita> citasExistentes = citasPorSala.get(sala);
-        if (citasExistentes != null) {
-            for (Cita citaExistente : citasExistentes) {
-                if (Math.abs(citaExistente.getFechaHora().compareTo(fechaHora)) < 2) { // 2 horas de diferencia
-                    return false;
-                }
-            }
+    public synchronized boolean esMedicoDisponible(Medico medico, LocalDateTime fechaHora) {
+        return estaLibre(agendaPorMedico.get(medico), fechaHora);
+    }
+
+    public synchronized boolean esSalaDisponible(Sala sala, LocalDateTime fechaHora) {
+        return estaLibre(agendaPorSala.get(sala), fechaHora);
+    }
+
+    /**
+     * Un turno está libre si no hay otra cita a menos de DURACION_CITA antes o después.
+     * Con la agenda ordenada alcanza con mirar la cita anterior y la siguiente: O(log n).
+     */
+    private boolean estaLibre(NavigableMap<LocalDateTime, Cita> agenda, LocalDateTime fechaHora) {
+        if (agenda == null || agenda.isEmpty()) {
+            return true;
+        }
+        Map.Entry<LocalDateTime, Cita> anterior = agenda.floorEntry(fechaHora);
+        if (anterior != null && anterior.getKey().plus(DURACION_CITA).isAfter(fechaHora)) {
+            return false;
         }
-        return true;
+        Map.Entry<LocalDateTime, Cita> siguiente = agenda.ceilingEntry(fechaHora);
+        return siguiente == null || !fechaHora.plus(DURACION_CITA).isAfter(siguiente.getKey());
     }
 
     private void actualizarIndicePaciente(Paciente paciente, Cita cita) {
@@ -115,9 +363,120 @@ public class CitaManager implements CitaService {
         citasSala.add(cita);
     }
 
+    /**
+     * Incorpora una cita ya existente (por ejemplo, leída de un archivo) sin validarla ni avisar a los observadores.
+     */
+    synchronized void incorporar(Cita cita) {
+        registrar(cita);
+    }
+
+    synchronized void limpiar() {
+        citas.clear();
+        citasPorPaciente.clear();
+        citasPorMedico.clear();
+        citasPorSala.clear();
+        agendaPorMedico.clear();
+        agendaPorSala.clear();
+        historialPorPaciente.clear();
+        historialPorMedico.clear();
+        historialPorSala.clear();
+    }
+
+    /**
+     * Reemplaza el contenido del manager por las citas dadas, armando los índices en paralelo
+     * (uno por tarea). Las citas anteriores a {@code corte} que ya no ocupan turno se agregan a la
+     * lista y se agrupan por paciente, médico y sala, pero cada grupo entra a su índice recién cuando
+     * alguien consulta esa clave.
+     */
+    synchronized void reconstruir(List<Cita> todas, LocalDateTime corte, Executor pool) {
+        limpiar();
+        List<Cita> vigentes = new ArrayList<>();
+        List<Cita> historial = new ArrayList<>();
+        for (Cita cita : todas) {
+            (ocupaTurno(cita) || !cita.getFechaHora().isBefore(corte) ? vigentes : historial).add(cita);
+        }
+        citas.addAll(vigentes);
+        citas.addAll(historial);
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> agrupar(vigentes, Cita::getPaciente, citasPorPaciente), pool),
+                CompletableFuture.runAsync(() -> agrupar(vigentes, Cita::getMedico, citasPorMedico), pool),
+                CompletableFuture.runAsync(() -> agrupar(vigentes, Cita::getSala, citasPorSala), pool),
+                CompletableFuture.runAsync(() -> agendar(vigentes, Cita::getMedico, agendaPorMedico), pool),
+                CompletableFuture.runAsync(() -> agendar(vigentes, Cita::getSala, agendaPorSala), pool),
+                CompletableFuture.runAsync(() -> agrupar(historial, Cita::getPaciente, historialPorPaciente), pool),
+                CompletableFuture.runAsync(() -> agrupar(historial, Cita::getMedico, historialPorMedico), pool),
+                CompletableFuture.runAsync(() -> agrupar(historial, Cita::getSala, historialPorSala), pool)
+        ).join();
+    }
+
+    private static <K> void agrupar(List<Cita> citas, Function<Cita, K> clave, Map<K, List<Cita>> indice) {
+        Map<K, List<Cita>> grupos = new HashMap<>();
+        for (Cita cita : citas) {
+            grupos.computeIfAbsent(clave.apply(cita), k -> new ArrayList<>()).add(cita);
+        }
+        indice.putAll(grupos);
+    }
+
+    private static <K> void agendar(List<Cita> citas, Function<Cita, K> clave,
+                                    Map<K, NavigableMap<LocalDateTime, Cita>> agendas) {
+        Map<K, NavigableMap<LocalDateTime, Cita>> grupos = new HashMap<>();
+        for (Cita cita : citas) {
+            if (ocupaTurno(cita)) {
+                grupos.computeIfAbsent(clave.apply(cita), k -> new TreeMap<>()).put(cita.getFechaHora(), cita);
+            }
+        }
+        agendas.putAll(grupos);
+    }
+
+    // Pasa al índice las citas pasadas de la clave que todavía no se indexaron, dejando la lista ordenada por horario
+    private synchronized <K> List<Cita> indexado(Map<K, List<Cita>> indice, Map<K, List<Cita>> historial, K clave) {
+        List<Cita> pendientes = historial.isEmpty() ? null : historial.remove(clave);
+        if (pendientes != null) {
+            List<Cita> lista = indice.computeIfAbsent(clave, k -> new ArrayList<>());
+            lista.addAll(pendientes);
+            lista.sort(Comparator.comparing(Cita::getFechaHora));
+        }
+        return indice.get(clave);
+    }
+
+    /**
+     * Marca una cita cuyo último cambio se descartó al escribirlo en la base: en memoria sigue vigente,
+     * pero la base no la tiene o la tiene en otro estado.
+     */
+    synchronized void marcarSinPersistir(Cita cita) {
+        sinPersistir.add(cita);
+    }
+
+    synchronized void marcarPersistida(Cita cita) {
+        sinPersistir.remove(cita);
+    }
+
+    public synchronized boolean estaPersistida(Cita cita) {
+        return !sinPersistir.contains(cita);
+    }
+
+    /**
+     * Citas cuyo estado en memoria no coincide con la base, en el orden en que se rechazaron.
+     */
+    public synchronized List<Cita> getCitasSinPersistir() {
+        return new ArrayList<>(sinPersistir);
+    }
+
+    public synchronized int cantidadCitas() {
+        return citas.size();
+    }
+
+    public synchronized Map<EstadoCita, Long> contarPorEstado() {
+        Map<EstadoCita, Long> conteo = new EnumMap<>(EstadoCita.class);
+        for (Cita cita : citas) {
+            conteo.merge(cita.getEstado(), 1L, Long::sum);
+        }
+        return conteo;
+    }
+
     @Override
     public List<Cita> getCitasPorPaciente(Paciente paciente) {
-        List<Cita> citasPaciente = citasPorPaciente.get(paciente);
+        List<Cita> citasPaciente = indexado(citasPorPaciente, historialPorPaciente, paciente);
         if (citasPaciente != null) {
             return Collections.unmodifiableList(citasPaciente);
         } else {
@@ -127,7 +486,7 @@ public class CitaManager implements CitaService {
 
     @Override
     public List<Cita> getCitasPorMedico(Medico medico) {
-        List<Cita> citasMedico = citasPorMedico.get(medico);
+        List<Cita> citasMedico = indexado(citasPorMedico, historialPorMedico, medico);
         if (citasMedico != null) {
             return Collections.unmodifiableList(citasMedico);
         } else {
@@ -137,7 +496,7 @@ public class CitaManager implements CitaService {
 
     @Override
     public List<Cita> getCitasPorSala(Sala sala) {
-        List<Cita> citasSala = citasPorSala.get(sala);
+        List<Cita> citasSala = indexado(citasPorSala, historialPorSala, sala);
         if (citasSala != null) {
             return Collections.unmodifiableList(citasSala);
         } else {
@@ -145,33 +504,94 @@ public class CitaManager implements CitaService {
         }
     }
 
+    /**
+     * Copia de las citas del paciente ordenada por horario, tomada con el bloqueo del manager.
+     */
+    synchronized List<Cita> copiarCitasPorPaciente(Paciente paciente) {
+        return copiaOrdenada(getCitasPorPaciente(paciente));
+    }
+
+    synchronized List<Cita> copiarCitasPorMedico(Medico medico) {
+        return copiaOrdenada(getCitasPorMedico(medico));
+    }
+
+    private static List<Cita> copiaOrdenada(List<Cita> lista) {
+        List<Cita> copia = new ArrayList<>(lista);
+        copia.sort(Comparator.comparing(Cita::getFechaHora));
+        return copia;
+    }
+
     @Override
     public void guardarCitas(String filename) throws IOException {
         try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            for (Cita cita : citas) {
-                writer.println(cita.toCsvString());
+            escribirCitas(writer);
+        }
+    }
+
+    /**
+     * Exporta las citas en memoria con el formato del exportador. Se leen en tramos, tomando el
+     * bloqueo solo para copiar cada tramo, así una exportación larga no frena las reservas.
+     */
+    public ExportadorDatos.Resultado exportarCitas(Path destino, ExportadorDatos exportador) throws IOException {
+        Iterator<Cita> tramos = new Iterator<>() {
+            private int siguiente;
+            private Iterator<Cita> actual = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                if (!actual.hasNext()) {
+                    List<Cita> tramo = tramo(siguiente, TRAMO_EXPORTACION);
+                    siguiente += tramo.size();
+                    actual = tramo.iterator();
+                }
+                return actual.hasNext();
             }
+
+            @Override
+            public Cita next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return actual.next();
+            }
+        };
+        Stream<Object[]> filas = StreamSupport.stream(Spliterators.spliteratorUnknownSize(tramos, Spliterator.ORDERED), false)
+                .map(cita -> new Object[]{
+                        cita.getPaciente().getDni(),
+                        cita.getMedico().getDni(),
+                        cita.getSala().getNumero(),
+                        cita.getFechaHora(),
+                        cita.getCosto(),
+                        cita.getEstado(),
+                        cita.getObservaciones()});
+        return exportador.exportar(destino, COLUMNAS_EXPORTACION, filas);
+    }
+
+    private synchronized List<Cita> tramo(int desde, int cantidad) {
+        if (desde >= citas.size()) {
+            return List.of();
+        }
+        return new ArrayList<>(citas.subList(desde, Math.min(citas.size(), desde + cantidad)));
+    }
+
+    synchronized void escribirCitas(PrintWriter writer) {
+        for (Cita cita : citas) {
+            writer.println(cita.toCsvString());
         }
     }
 
     @Override
-    public void cargarCitas(String filename, Map<String, Paciente> pacientes,
+    public synchronized void cargarCitas(String filename, Map<String, Paciente> pacientes,
                             Map<String, Medico> medicos, Map<String, Sala> salas)
             throws IOException, ClassNotFoundException, CitaException {
-        citas.clear();
-        citasPorPaciente.clear();
-        citasPorMedico.clear();
-        citasPorSala.clear();
+        limpiar();
 
         try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 try {
                     Cita cita = Cita.fromCsvString(line, pacientes, medicos, salas);
-                    citas.add(cita);
-                    actualizarIndicePaciente(cita.getPaciente(), cita);
-                    actualizarIndiceMedico(cita.getMedico(), cita);
-                    actualizarIndiceSala(cita.getSala(), cita);
+                    registrar(cita);
                 } catch (CitaException e) {
                     System.err.println("Error al cargar cita desde CSV: " + line + " - " + e.getMessage());
                     throw e;
@@ -0,0 +1,18 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+import org.example.entidades.EstadoCita;
+
+/**
+ * Recibe los cambios de citas de un {@link CitaManager}. Se invoca dentro del bloqueo del
+ * manager, así que las implementaciones deben ser rápidas y no volver a llamar al manager
+ * desde otro hilo.
+ */
+public interface CitaObservador {
+
+    default void alProgramar(Cita cita) {
+    }
+
+    default void alCambiarEstado(Cita cita, EstadoCita anterior) {
+    }
+}
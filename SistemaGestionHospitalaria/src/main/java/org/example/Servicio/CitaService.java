@@ -3,6 +3,7 @@ package org.example.Servicio;
 import org.example.entidades.*;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -11,6 +12,12 @@ interface CitaService {
     Cita programarCita(Paciente paciente, Medico medico, Sala sala,
                        LocalDateTime fechaHora, BigDecimal costo) throws CitaException;
 
+    void avanzarCita(Cita cita);
+
+    void cancelarCita(Cita cita);
+
+    void marcarNoAsistio(Cita cita);
+
     List<Cita> getCitasPorPaciente(Paciente paciente);
 
     List<Cita> getCitasPorMedico(Medico medico);
@@ -22,4 +29,15 @@ interface CitaService {
     void cargarCitas(String filename, Map<String, Paciente> pacientes,
                      Map<String, Medico> medicos, Map<String, Sala> salas)
             throws IOException, ClassNotFoundException, CitaException;
+
+    /**
+     * Carga resolviendo solo los pacientes, médicos y salas que referencia el archivo.
+     * Si falta alguno se informan todos juntos y no se carga nada.
+     */
+    default void cargarCitas(String filename, ResolutorReferencias resolutor)
+            throws IOException, ClassNotFoundException, CitaException {
+        ResolutorReferencias.Resolucion resolucion = resolutor.resolverArchivo(Path.of(filename));
+        resolucion.verificarCompleta();
+        cargarCitas(filename, resolucion.pacientes(), resolucion.medicos(), resolucion.salas());
+    }
 }
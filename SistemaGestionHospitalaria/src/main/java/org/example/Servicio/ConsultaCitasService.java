@@ -0,0 +1,176 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.example.entidades.Cita;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.Sala;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Acceso "extra lazy" a las citas de un médico, paciente o sala. Si la colección todavía no
+ * está inicializada, cada operación se resuelve con una consulta puntual (COUNT, rango o página)
+ * en lugar de cargar todas las citas; si ya está en memoria (o la entidad no es persistente)
+ * se responde sobre la vista en memoria sin ir a la base.
+ */
+public class ConsultaCitasService {
+
+    private final EntityManager em;
+    private final PersistenceUnitUtil persistenceUnitUtil;
+
+    public ConsultaCitasService(EntityManager em) {
+        this.em = em;
+        this.persistenceUnitUtil = em.getEntityManagerFactory().getPersistenceUnitUtil();
+    }
+
+    // Entidad dueña de las citas: atributo en Cita, entidad, id y vista en memoria
+    private record Duenio(String atributo, Object entidad, Object id, List<Cita> citas) {
+    }
+
+    private Duenio de(Medico medico) {
+        return new Duenio("medico", medico, medico.getIdMedico(), medico.getCitasVista());
+    }
+
+    private Duenio de(Paciente paciente) {
+        return new Duenio("paciente", paciente, paciente.getId(), paciente.getCitasVista());
+    }
+
+    private Duenio de(Sala sala) {
+        return new Duenio("sala", sala, sala.getIdSala(), sala.getCitasVista());
+    }
+
+    public long contarCitas(Medico medico) {
+        return contar(de(medico));
+    }
+
+    public long contarCitas(Paciente paciente) {
+        return contar(de(paciente));
+    }
+
+    public long contarCitas(Sala sala) {
+        return contar(de(sala));
+    }
+
+    /**
+     * Citas en [desde, hasta), ordenadas por horario.
+     */
+    public List<Cita> citasEntre(Medico medico, LocalDateTime desde, LocalDateTime hasta) {
+        return entre(de(medico), desde, hasta);
+    }
+
+    public List<Cita> citasEntre(Paciente paciente, LocalDateTime desde, LocalDateTime hasta) {
+        return entre(de(paciente), desde, hasta);
+    }
+
+    public List<Cita> citasEntre(Sala sala, LocalDateTime desde, LocalDateTime hasta) {
+        return entre(de(sala), desde, hasta);
+    }
+
+    /**
+     * Página de citas ordenadas por horario (la página 0 es la más antigua).
+     */
+    public List<Cita> paginaCitas(Medico medico, int pagina, int tamanoPagina) {
+        return pagina(de(medico), pagina, tamanoPagina);
+    }
+
+    public List<Cita> paginaCitas(Paciente paciente, int pagina, int tamanoPagina) {
+        return pagina(de(paciente), pagina, tamanoPagina);
+    }
+
+    public List<Cita> paginaCitas(Sala sala, int pagina, int tamanoPagina) {
+        return pagina(de(sala), pagina, tamanoPagina);
+    }
+
+    /**
+     * Indica si hay alguna cita en [desde, hasta) sin traer las citas.
+     */
+    public boolean tieneCitaEntre(Medico medico, LocalDateTime desde, LocalDateTime hasta) {
+        return existeEntre(de(medico), desde, hasta);
+    }
+
+    public boolean tieneCitaEntre(Paciente paciente, LocalDateTime desde, LocalDateTime hasta) {
+        return existeEntre(de(paciente), desde, hasta);
+    }
+
+    public boolean tieneCitaEntre(Sala sala, LocalDateTime desde, LocalDateTime hasta) {
+        return existeEntre(de(sala), desde, hasta);
+    }
+
+    private boolean enMemoria(Duenio duenio) {
+        return duenio.id() == null || persistenceUnitUtil.isLoaded(duenio.entidad(), "citas");
+    }
+
+    private long contar(Duenio duenio) {
+        if (enMemoria(duenio)) {
+            return duenio.citas().size();
+        }
+        return em.createQuery("SELECT COUNT(c) FROM Cita c WHERE c." + duenio.atributo() + " = :duenio", Long.class)
+                .setParameter("duenio", duenio.entidad())
+                .getSingleResult();
+    }
+
+    private List<Cita> entre(Duenio duenio, LocalDateTime desde, LocalDateTime hasta) {
+        validarRango(desde, hasta);
+        if (enMemoria(duenio)) {
+            return duenio.citas().stream()
+                    .filter(c -> !c.getFechaHora().isBefore(desde) && c.getFechaHora().isBefore(hasta))
+                    .sorted(Comparator.comparing(Cita::getFechaHora))
+                    .toList();
+        }
+        return em.createQuery("SELECT c FROM Cita c WHERE c." + duenio.atributo() + " = :duenio "
+                        + "AND c.fechaHora >= :desde AND c.fechaHora < :hasta ORDER BY c.fechaHora", Cita.class)
+                .setParameter("duenio", duenio.entidad())
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .getResultList();
+    }
+
+    private List<Cita> pagina(Duenio duenio, int pagina, int tamanoPagina) {
+        if (pagina < 0 || tamanoPagina <= 0) {
+            throw new IllegalArgumentException("Página o tamaño de página inválido");
+        }
+        if (enMemoria(duenio)) {
+            return duenio.citas().stream()
+                    .sorted(Comparator.comparing(Cita::getFechaHora))
+                    .skip((long) pagina * tamanoPagina)
+                    .limit(tamanoPagina)
+                    .toList();
+        }
+        return em.createQuery("SELECT c FROM Cita c WHERE c." + duenio.atributo() + " = :duenio "
+                        + "ORDER BY c.fechaHora, c.idCita", Cita.class)
+                .setParameter("duenio", duenio.entidad())
+                .setFirstResult(pagina * tamanoPagina)
+                .setMaxResults(tamanoPagina)
+                .getResultList();
+    }
+
+    private boolean existeEntre(Duenio duenio, LocalDateTime desde, LocalDateTime hasta) {
+        validarRango(desde, hasta);
+        if (enMemoria(duenio)) {
+            for (Cita c : duenio.citas()) {
+                if (!c.getFechaHora().isBefore(desde) && c.getFechaHora().isBefore(hasta)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return !em.createQuery("SELECT c.idCita FROM Cita c WHERE c." + duenio.atributo() + " = :duenio "
+                        + "AND c.fechaHora >= :desde AND c.fechaHora < :hasta", Long.class)
+                .setParameter("duenio", duenio.entidad())
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    private void validarRango(LocalDateTime desde, LocalDateTime hasta) {
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+    }
+}
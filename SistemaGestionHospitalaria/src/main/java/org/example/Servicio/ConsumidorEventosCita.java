@@ -0,0 +1,12 @@
+package org.example.Servicio;
+
+import java.util.List;
+
+/**
+ * Recibe lotes de eventos en el orden en que se publicaron. La lista y sus eventos solo son
+ * válidos durante la llamada.
+ */
+@FunctionalInterface
+public interface ConsumidorEventosCita {
+    void procesar(List<EventoCita> lote);
+}
@@ -0,0 +1,243 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import org.example.entidades.Cita;
+import org.example.entidades.EstadoCita;
+import org.example.entidades.TipoSangre;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distribución de pacientes por grupo etario y tipo de sangre, por hospital, por departamento y de
+ * toda la red. Cada nivel sale de una única consulta agrupada por grupo etario y tipo de sangre,
+ * así que nunca se cargan pacientes; el resultado queda en caché hasta que cambian los datos.
+ *
+ * <p>Un paciente cuenta para un departamento si tiene alguna cita, activa o archivada, con un médico de
+ * ese departamento.
+ * Como observador del {@link CitaManager}, cada cita nueva invalida la caché por departamento;
+ * las altas o cambios de pacientes se avisan con {@link #invalidar()}. Si las citas se escriben con
+ * {@link EscrituraDiferida}, al programarlas todavía no están en la base: en ese caso la caché se
+ * invalida recién cuando la escritura confirma la inserción, para no guardar como vigente un cálculo
+ * que no las vio.</p>
+ */
+public class DemografiaService implements CitaObservador {
+
+    private static final int TIPOS = TipoSangre.values().length;
+
+    // Grupo etario según la fecha de nacimiento contra los cortes del día: la misma edad de Paciente.getEdad.
+    // Se calcula en una subconsulta porque H2 no agrupa por una expresión con parámetros
+    private static final String GRUPO = "CASE WHEN p.fechaNacimiento > :corte1 THEN 0 "
+            + "WHEN p.fechaNacimiento > :corte2 THEN 1 WHEN p.fechaNacimiento > :corte3 THEN 2 "
+            + "WHEN p.fechaNacimiento > :corte4 THEN 3 ELSE 4 END";
+    private static final String POR_HOSPITAL =
+            "SELECT x.dueno, x.tipo, x.grupo, COUNT(*) FROM ("
+                    + "SELECT p.hospital.idHospital AS dueno, p.tipoSangre AS tipo, " + GRUPO + " AS grupo "
+                    + "FROM Paciente p) x GROUP BY x.dueno, x.tipo, x.grupo";
+    // Las citas archivadas también cuentan: el UNION deja un par departamento-paciente una sola vez
+    private static final String POR_DEPARTAMENTO =
+            "SELECT x.dueno, x.tipo, x.grupo, COUNT(*) FROM ("
+                    + "SELECT m.departamento.idDepartamento AS dueno, p.id AS paciente, p.tipoSangre AS tipo, "
+                    + GRUPO + " AS grupo FROM Cita c JOIN c.paciente p JOIN c.medico m "
+                    + "UNION "
+                    + "SELECT m.departamento.idDepartamento, p.id, p.tipoSangre, "
+                    + GRUPO + " FROM CitaArchivada a JOIN a.paciente p JOIN a.medico m) x "
+                    + "GROUP BY x.dueno, x.tipo, x.grupo";
+
+    /**
+     * Conteos de un hospital, departamento o de la red, en un arreglo plano grupo etario x tipo de sangre.
+     */
+    public static final class Demografia {
+        private final long[] conteos = new long[GrupoEtario.values().length * TIPOS];
+
+        private void sumar(GrupoEtario grupo, TipoSangre tipo, long cantidad) {
+            conteos[grupo.ordinal() * TIPOS + tipo.ordinal()] += cantidad;
+        }
+
+        public long cantidad(GrupoEtario grupo, TipoSangre tipo) {
+            return conteos[grupo.ordinal() * TIPOS + tipo.ordinal()];
+        }
+
+        public long total() {
+            long total = 0;
+            for (long conteo : conteos) {
+                total += conteo;
+            }
+            return total;
+        }
+
+        public EnumMap<GrupoEtario, Long> porGrupoEtario() {
+            EnumMap<GrupoEtario, Long> resultado = new EnumMap<>(GrupoEtario.class);
+            for (GrupoEtario grupo : GrupoEtario.values()) {
+                long suma = 0;
+                for (int tipo = 0; tipo < TIPOS; tipo++) {
+                    suma += conteos[grupo.ordinal() * TIPOS + tipo];
+                }
+                resultado.put(grupo, suma);
+            }
+            return resultado;
+        }
+
+        public EnumMap<TipoSangre, Long> porTipoSangre() {
+            EnumMap<TipoSangre, Long> resultado = new EnumMap<>(TipoSangre.class);
+            for (TipoSangre tipo : TipoSangre.values()) {
+                long suma = 0;
+                for (int grupo = 0; grupo < GrupoEtario.values().length; grupo++) {
+                    suma += conteos[grupo * TIPOS + tipo.ordinal()];
+                }
+                resultado.put(tipo, suma);
+            }
+            return resultado;
+        }
+
+        @Override
+        public String toString() {
+            return "Demografia{total=" + total() + ", porGrupoEtario=" + porGrupoEtario()
+                    + ", porTipoSangre=" + porTipoSangre() + "}";
+        }
+    }
+
+    // Las edades dependen del día: si cambia, la instantánea se recalcula.
+    // red solo se usa en la de hospitales: en la de departamentos un paciente puede contar varias veces
+    private record Instantanea(LocalDate dia, long cambios, Map<Long, Demografia> porId, Demografia red) {
+
+        boolean vigente(LocalDate hoy, long cambiosActuales) {
+            return dia.equals(hoy) && cambios == cambiosActuales;
+        }
+    }
+
+    private final EntityManagerFactory emf;
+    private final Object bloqueo = new Object();
+    // Se cuentan los cambios en vez de borrar la caché, así un cálculo que empezó antes no la pisa con datos viejos
+    private final AtomicLong cambiosHospitales = new AtomicLong();
+    private final AtomicLong cambiosDepartamentos = new AtomicLong();
+    private volatile Instantanea hospitales;
+    private volatile Instantanea departamentos;
+
+    public DemografiaService(EntityManagerFactory emf, CitaManager citaManager) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+        if (citaManager != null) {
+            citaManager.agregarObservador(this);
+        }
+    }
+
+    /**
+     * Para citas persistidas con escritura diferida: no escucha al manager sino a las inserciones confirmadas.
+     */
+    public DemografiaService(EntityManagerFactory emf, EscrituraDiferida escritura) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+        Objects.requireNonNull(escritura, "La escritura diferida no puede ser nula")
+                .alConfirmarInserciones(citas -> cambiosDepartamentos.incrementAndGet());
+    }
+
+    /**
+     * Demografía de un hospital; vacía si no tiene pacientes.
+     */
+    public Demografia porHospital(Long idHospital) {
+        return hospitales().porId().getOrDefault(idHospital, new Demografia());
+    }
+
+    public Map<Long, Demografia> porHospitales() {
+        return hospitales().porId();
+    }
+
+    /**
+     * Demografía de los pacientes atendidos en un departamento; vacía si no tiene citas.
+     */
+    public Demografia porDepartamento(Long idDepartamento) {
+        return departamentos().porId().getOrDefault(idDepartamento, new Demografia());
+    }
+
+    public Map<Long, Demografia> porDepartamentos() {
+        return departamentos().porId();
+    }
+
+    /**
+     * Todos los pacientes, incluidos los que no tienen hospital asignado.
+     */
+    public Demografia red() {
+        return hospitales().red();
+    }
+
+    public void invalidar() {
+        cambiosHospitales.incrementAndGet();
+        cambiosDepartamentos.incrementAndGet();
+    }
+
+    @Override
+    public void alProgramar(Cita cita) {
+        // Puede ser el primer turno del paciente en ese departamento
+        cambiosDepartamentos.incrementAndGet();
+    }
+
+    @Override
+    public void alCambiarEstado(Cita cita, EstadoCita anterior) {
+        // El estado no cambia qué pacientes atendió cada departamento
+    }
+
+    private Instantanea hospitales() {
+        LocalDate hoy = LocalDate.now();
+        Instantanea actual = hospitales;
+        if (actual != null && actual.vigente(hoy, cambiosHospitales.get())) {
+            return actual;
+        }
+        synchronized (bloqueo) {
+            long cambios = cambiosHospitales.get();
+            if (hospitales == null || !hospitales.vigente(hoy, cambios)) {
+                hospitales = calcular(POR_HOSPITAL, hoy, cambios);
+            }
+            return hospitales;
+        }
+    }
+
+    private Instantanea departamentos() {
+        LocalDate hoy = LocalDate.now();
+        Instantanea actual = departamentos;
+        if (actual != null && actual.vigente(hoy, cambiosDepartamentos.get())) {
+            return actual;
+        }
+        synchronized (bloqueo) {
+            long cambios = cambiosDepartamentos.get();
+            if (departamentos == null || !departamentos.vigente(hoy, cambios)) {
+                departamentos = calcular(POR_DEPARTAMENTO, hoy, cambios);
+            }
+            return departamentos;
+        }
+    }
+
+    private Instantanea calcular(String jpql, LocalDate hoy, long cambios) {
+        GrupoEtario[] grupos = GrupoEtario.values();
+        List<Object[]> filas;
+        EntityManager em = emf.createEntityManager();
+        try {
+            TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class);
+            // Nacido después del corte i: todavía no cumplió la edad inicial del grupo i
+            for (int i = 1; i < grupos.length; i++) {
+                query.setParameter("corte" + i, hoy.minusYears(grupos[i].getDesde()));
+            }
+            filas = query.getResultList();
+        } finally {
+            em.close();
+        }
+        Map<Long, Demografia> porId = new HashMap<>();
+        Demografia red = new Demografia();
+        for (Object[] fila : filas) {
+            TipoSangre tipo = (TipoSangre) fila[1];
+            GrupoEtario grupo = grupos[((Number) fila[2]).intValue()];
+            long cantidad = ((Number) fila[3]).longValue();
+            if (fila[0] != null) {
+                porId.computeIfAbsent((Long) fila[0], id -> new Demografia()).sumar(grupo, tipo, cantidad);
+            }
+            red.sumar(grupo, tipo, cantidad);
+        }
+        return new Instantanea(hoy, cambios, Collections.unmodifiableMap(porId), red);
+    }
+}
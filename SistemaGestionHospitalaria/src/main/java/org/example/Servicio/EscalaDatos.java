@@ -0,0 +1,54 @@
+package org.example.Servicio;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Tamaño del conjunto de datos sintético que produce {@link GeneradorDatos}.
+ * Con la misma escala (y la misma semilla) siempre se obtiene el mismo dataset.
+ */
+public record EscalaDatos(int hospitales,
+                          int medicos,
+                          int pacientes,
+                          long citas,
+                          int salasPorDepartamento,
+                          long semilla,
+                          LocalDate fechaInicio,
+                          LocalDate fechaCorte) {
+
+    public EscalaDatos {
+        if (hospitales <= 0) {
+            throw new IllegalArgumentException("Debe haber al menos un hospital");
+        }
+        if (medicos < 0 || pacientes < 0 || citas < 0) {
+            throw new IllegalArgumentException("Las cantidades no pueden ser negativas");
+        }
+        if (salasPorDepartamento <= 0) {
+            throw new IllegalArgumentException("Cada departamento necesita al menos una sala");
+        }
+        if (citas > 0 && pacientes == 0) {
+            throw new IllegalArgumentException("No se pueden generar citas sin pacientes");
+        }
+        if (medicos + (long) pacientes > GeneradorDatos.MAX_PERSONAS) {
+            throw new IllegalArgumentException("Demasiadas personas para el rango de DNI disponible");
+        }
+        Objects.requireNonNull(fechaInicio, "La fecha de inicio no puede ser nula");
+        Objects.requireNonNull(fechaCorte, "La fecha de corte no puede ser nula");
+    }
+
+    /**
+     * Escala chica para desarrollo: se genera y carga en segundos.
+     */
+    public static EscalaDatos pequena() {
+        return new EscalaDatos(2, 40, 2_000, 20_000, 2, 42L,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1));
+    }
+
+    /**
+     * Escala de la red completa: 50 hospitales, 5k médicos, 2M pacientes y 20M citas.
+     */
+    public static EscalaDatos red() {
+        return new EscalaDatos(50, 5_000, 2_000_000, 20_000_000L, 4, 42L,
+                LocalDate.of(2022, 1, 1), LocalDate.of(2026, 1, 1));
+    }
+}
@@ -0,0 +1,453 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entidades.Cita;
+import org.example.entidades.EstadoCita;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Persistencia diferida (write-behind) de las citas del {@link CitaManager}. Las reservas y los cambios
+ * de estado se confirman en memoria y solo se encolan; un hilo de fondo los escribe en la base cada
+ * {@code intervalo} o cuando se junta un lote, con batches JDBC y una transacción por lote.
+ *
+ * <p>Los cambios de una misma cita se combinan: en la cola queda una sola entrada por cita con su
+ * último estado, así una cita programada y cancelada antes del flush se escribe una sola vez.
+ * Si un lote falla se parte en mitades hasta aislar las citas que fallan, así una fila inválida no arrastra
+ * al resto del lote. Solo esas se reintentan en el próximo ciclo (salvo que llegue un cambio más nuevo de
+ * la cita) hasta {@code MAX_INTENTOS}; después se descartan y quedan como {@link Rechazo}: se listan en
+ * {@link #getRechazadas}, se avisan con {@link #alRechazar} y la cita se marca en el {@link CitaManager}
+ * como no persistida hasta que un cambio posterior se escriba bien. Una actualización que no encuentra
+ * su fila (por ejemplo porque {@link ArchivoCitas} ya la movió) también falla.</p>
+ *
+ * <p>En cada transacción las actualizaciones van antes que las inserciones: una cancelación libera su
+ * bloque de turno antes de que una cita nueva lo reserve.</p>
+ *
+ * <p>Los pacientes, médicos y salas ya tienen que estar persistidos: solo se escriben las citas.
+ * Quien lea citas de la base y necesite ver las nuevas puede enterarse de cuándo quedaron escritas con
+ * {@link #alConfirmarInserciones}.</p>
+ */
+public class EscrituraDiferida implements CitaObservador, AutoCloseable {
+
+    public static final int MAX_INTENTOS = 3;
+
+    private static final String INSERT_CITA =
+            "INSERT INTO cita_tabla (paciente_id, medico_id, sala_id, fecha_hora, costo, estado, observaciones, "
+                    + "version, bloque_par, bloque_impar) VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, ?)";
+    private static final String UPDATE_CITA =
+            "UPDATE cita_tabla SET estado = ?, observaciones = ?, bloque_par = ?, bloque_impar = ?, "
+                    + "version = version + 1 WHERE idCita = ?";
+
+    // Copia del estado de la cita tomada al encolar, dentro del bloqueo del CitaManager
+    private record Fila(Cita cita, boolean nueva, EstadoCita estado, String observaciones,
+                        Long bloquePar, Long bloqueImpar, long encoladaNanos, int intentos) {
+    }
+
+    /**
+     * Cambio de una cita que no llegó a la base: {@code insercion} indica si faltó insertarla o solo
+     * actualizarla, y {@code estado} es el que se intentó escribir.
+     */
+    public record Rechazo(Cita cita, boolean insercion, EstadoCita estado, String motivo) {
+    }
+
+    private final SessionFactory sessionFactory;
+    private final CitaManager citaManager;
+    private final Duration intervalo;
+    private final int tamanoLote;
+
+    private final Map<Cita, Fila> pendientes = new LinkedHashMap<>();
+    private final List<Consumer<List<Cita>>> insercionesConfirmadas = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Rechazo>> accionesRechazo = new CopyOnWriteArrayList<>();
+    // Último rechazo de cada cita que todavía no se escribió bien. Protegido por sí mismo
+    private final Map<Cita, Rechazo> rechazadas = new LinkedHashMap<>();
+    private final Thread hiloEscritor;
+    private volatile boolean activo = true;
+
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong escritas = new AtomicLong();
+    private final AtomicLong fallidas = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private volatile String ultimoError;
+
+    public EscrituraDiferida(EntityManagerFactory emf, CitaManager citaManager, Duration intervalo, int tamanoLote) {
+        this.sessionFactory = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo")
+                .unwrap(SessionFactory.class);
+        this.citaManager = citaManager;
+        this.intervalo = Objects.requireNonNull(intervalo, "El intervalo no puede ser nulo");
+        // wait(0) espera para siempre: el intervalo tiene que ser de al menos un milisegundo
+        if (intervalo.toMillis() < 1) {
+            throw new IllegalArgumentException("El intervalo debe ser de al menos un milisegundo");
+        }
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
+        }
+        this.tamanoLote = tamanoLote;
+        this.hiloEscritor = new Thread(this::escribir, "escritura-diferida-citas");
+        this.hiloEscritor.setDaemon(true);
+        this.hiloEscritor.start();
+        if (citaManager != null) {
+            citaManager.agregarObservador(this);
+        }
+    }
+
+    /**
+     * Registra una acción que recibe las citas insertadas en cada transacción confirmada. Corre en el
+     * hilo escritor, así que tiene que ser corta.
+     */
+    public void alConfirmarInserciones(Consumer<List<Cita>> accion) {
+        insercionesConfirmadas.add(Objects.requireNonNull(accion, "La acción no puede ser nula"));
+    }
+
+    /**
+     * Registra una acción que recibe cada cambio descartado. Corre en el hilo escritor (o en el que
+     * cambió la cita, si llegó después de cerrar), así que tiene que ser corta.
+     */
+    public void alRechazar(Consumer<Rechazo> accion) {
+        accionesRechazo.add(Objects.requireNonNull(accion, "La acción no puede ser nula"));
+    }
+
+    @Override
+    public void alProgramar(Cita cita) {
+        encolar(cita, true);
+    }
+
+    @Override
+    public void alCambiarEstado(Cita cita, EstadoCita anterior) {
+        encolar(cita, false);
+    }
+
+    private void encolar(Cita cita, boolean nueva) {
+        synchronized (pendientes) {
+            if (activo) {
+                Fila anterior = pendientes.get(cita);
+                Fila fila = new Fila(cita,
+                        nueva || (anterior != null && anterior.nueva()),
+                        cita.getEstado(), cita.getObservaciones(), cita.getBloquePar(), cita.getBloqueImpar(),
+                        anterior != null ? anterior.encoladaNanos() : System.nanoTime(), 0);
+                pendientes.put(cita, fila);
+                encolados.incrementAndGet();
+                if (pendientes.size() >= tamanoLote) {
+                    pendientes.notifyAll();
+                }
+                return;
+            }
+        }
+        // Ya cerrada: el cambio queda solo en memoria
+        rechazar(new Rechazo(cita, nueva, cita.getEstado(), "Cambio recibido después de cerrar la escritura diferida"));
+    }
+
+    private void escribir() {
+        while (true) {
+            List<Fila> lote;
+            synchronized (pendientes) {
+                if (activo && pendientes.size() < tamanoLote) {
+                    try {
+                        pendientes.wait(intervalo.toMillis());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!activo && pendientes.isEmpty()) {
+                    return;
+                }
+                lote = tomarLote();
+            }
+            while (!lote.isEmpty()) {
+                escribirLote(lote);
+                synchronized (pendientes) {
+                    // Si hay más de un lote acumulado se sigue sin esperar al próximo intervalo
+                    lote = pendientes.size() >= tamanoLote || !activo ? tomarLote() : List.of();
+                }
+            }
+        }
+    }
+
+    private List<Fila> tomarLote() {
+        List<Fila> lote = new ArrayList<>(Math.min(tamanoLote, pendientes.size()));
+        Iterator<Fila> it = pendientes.values().iterator();
+        while (it.hasNext() && lote.size() < tamanoLote) {
+            lote.add(it.next());
+            it.remove();
+        }
+        return lote;
+    }
+
+    private void escribirLote(List<Fila> lote) {
+        List<Fila> escribibles = new ArrayList<>(lote.size());
+        for (Fila fila : lote) {
+            if (fila.nueva() || fila.cita().getIdCita() != null) {
+                escribibles.add(fila);
+            } else {
+                // Su inserción se descartó antes: no hay fila que actualizar
+                rechazar(new Rechazo(fila.cita(), true, fila.estado(),
+                        "La cita de " + fila.cita().getFechaHora() + " nunca se insertó"));
+            }
+        }
+        escribirPartes(escribibles);
+    }
+
+    // Si el lote falla se parte en mitades hasta aislar las filas que fallan; solo esas se reencolan
+    private void escribirPartes(List<Fila> filas) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        try {
+            escribirTransaccion(filas);
+        } catch (RuntimeException e) {
+            if (filas.size() == 1) {
+                ultimoError = e.getMessage();
+                reencolar(filas, e.getMessage());
+            } else {
+                int mitad = filas.size() / 2;
+                escribirPartes(filas.subList(0, mitad));
+                escribirPartes(filas.subList(mitad, filas.size()));
+            }
+        }
+    }
+
+    private void escribirTransaccion(List<Fila> filas) {
+        List<Fila> nuevas = new ArrayList<>();
+        List<Fila> actualizadas = new ArrayList<>();
+        for (Fila fila : filas) {
+            (fila.nueva() ? nuevas : actualizadas).add(fila);
+        }
+        List<Long> ids = new ArrayList<>(nuevas.size());
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                // Primero las actualizaciones: una cancelación libera su bloque antes de que una inserción lo tome
+                session.doWork(conexion -> {
+                    actualizar(conexion, actualizadas);
+                    insertar(conexion, nuevas, ids);
+                });
+                tx.commit();
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            }
+        }
+        List<Cita> insertadas = new ArrayList<>(nuevas.size());
+        for (int i = 0; i < nuevas.size(); i++) {
+            nuevas.get(i).cita().setIdCita(ids.get(i));
+            insertadas.add(nuevas.get(i).cita());
+        }
+        escritas.addAndGet(filas.size());
+        lotes.incrementAndGet();
+        if (!insertadas.isEmpty()) {
+            avisarInserciones(insertadas);
+        }
+        rehabilitar(filas);
+    }
+
+    // Una cita rechazada antes cuyo último cambio se acaba de escribir vuelve a estar al día en la base
+    private void rehabilitar(List<Fila> filas) {
+        List<Cita> alDia = new ArrayList<>();
+        synchronized (rechazadas) {
+            if (rechazadas.isEmpty()) {
+                return;
+            }
+            for (Fila fila : filas) {
+                if (rechazadas.remove(fila.cita()) != null) {
+                    alDia.add(fila.cita());
+                }
+            }
+        }
+        if (citaManager != null) {
+            for (Cita cita : alDia) {
+                citaManager.marcarPersistida(cita);
+            }
+        }
+    }
+
+    private void avisarInserciones(List<Cita> insertadas) {
+        List<Cita> vista = Collections.unmodifiableList(insertadas);
+        for (Consumer<List<Cita>> accion : insercionesConfirmadas) {
+            try {
+                accion.accept(vista);
+            } catch (RuntimeException e) {
+                // Ya está confirmado: un error del que escucha no debe reencolar las filas
+                System.err.println("Error al avisar inserciones de citas: " + e.getMessage());
+            }
+        }
+    }
+
+    private void insertar(Connection conexion, List<Fila> filas, List<Long> ids) throws SQLException {
+        if (filas.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = conexion.prepareStatement(INSERT_CITA, Statement.RETURN_GENERATED_KEYS)) {
+            for (Fila fila : filas) {
+                Cita cita = fila.cita();
+                ps.setLong(1, cita.getPaciente().getId());
+                ps.setLong(2, cita.getMedico().getIdMedico());
+                ps.setLong(3, cita.getSala().getIdSala());
+                ps.setObject(4, cita.getFechaHora());
+                ps.setBigDecimal(5, cita.getCosto());
+                ps.setString(6, fila.estado().name());
+                ps.setString(7, fila.observaciones());
+                ps.setObject(8, fila.bloquePar(), Types.BIGINT);
+                ps.setObject(9, fila.bloqueImpar(), Types.BIGINT);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            try (ResultSet claves = ps.getGeneratedKeys()) {
+                while (claves.next()) {
+                    ids.add(claves.getLong(1));
+                }
+            }
+        }
+        if (ids.size() != filas.size()) {
+            throw new SQLException("La base devolvió " + ids.size() + " ids para " + filas.size() + " citas");
+        }
+    }
+
+    private void actualizar(Connection conexion, List<Fila> filas) throws SQLException {
+        if (filas.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = conexion.prepareStatement(UPDATE_CITA)) {
+            for (Fila fila : filas) {
+                ps.setString(1, fila.estado().name());
+                ps.setString(2, fila.observaciones());
+                ps.setObject(3, fila.bloquePar(), Types.BIGINT);
+                ps.setObject(4, fila.bloqueImpar(), Types.BIGINT);
+                ps.setLong(5, fila.cita().getIdCita());
+                ps.addBatch();
+            }
+            int[] cuentas = ps.executeBatch();
+            for (int i = 0; i < cuentas.length; i++) {
+                // Sin fila que actualizar (archivada o borrada) el cambio se perdería en silencio
+                if (cuentas[i] == 0) {
+                    throw new SQLException("La cita " + filas.get(i).cita().getIdCita() + " ya no está en cita_tabla");
+                }
+            }
+        }
+    }
+
+    private void reencolar(List<Fila> lote, String motivo) {
+        List<Rechazo> descartadas = new ArrayList<>();
+        synchronized (pendientes) {
+            for (Fila fila : lote) {
+                Fila masNueva = pendientes.get(fila.cita());
+                if (masNueva != null) {
+                    // Llegó un cambio posterior: se conserva ese, pero sin perder que la cita falta insertar
+                    if (fila.nueva() && !masNueva.nueva()) {
+                        pendientes.put(fila.cita(), new Fila(masNueva.cita(), true, masNueva.estado(),
+                                masNueva.observaciones(), masNueva.bloquePar(), masNueva.bloqueImpar(),
+                                fila.encoladaNanos(), masNueva.intentos()));
+                    }
+                } else if (fila.intentos() + 1 >= MAX_INTENTOS) {
+                    descartadas.add(new Rechazo(fila.cita(), fila.nueva(), fila.estado(), motivo));
+                } else {
+                    pendientes.put(fila.cita(), new Fila(fila.cita(), fila.nueva(), fila.estado(),
+                            fila.observaciones(), fila.bloquePar(), fila.bloqueImpar(),
+                            fila.encoladaNanos(), fila.intentos() + 1));
+                }
+            }
+        }
+        // Fuera del bloqueo de la cola: marcar la cita toma el del CitaManager, que se adquiere antes que este
+        for (Rechazo rechazo : descartadas) {
+            rechazar(rechazo);
+        }
+    }
+
+    private void rechazar(Rechazo rechazo) {
+        fallidas.incrementAndGet();
+        ultimoError = rechazo.motivo();
+        synchronized (rechazadas) {
+            rechazadas.put(rechazo.cita(), rechazo);
+        }
+        if (citaManager != null) {
+            citaManager.marcarSinPersistir(rechazo.cita());
+        }
+        for (Consumer<Rechazo> accion : accionesRechazo) {
+            try {
+                accion.accept(rechazo);
+            } catch (RuntimeException e) {
+                System.err.println("Error al avisar el rechazo de una cita: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deja de aceptar cambios, escribe todo lo pendiente y espera al hilo escritor.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        synchronized (pendientes) {
+            activo = false;
+            pendientes.notifyAll();
+        }
+        hiloEscritor.join();
+    }
+
+    public int getPendientes() {
+        synchronized (pendientes) {
+            return pendientes.size();
+        }
+    }
+
+    /**
+     * Antigüedad del cambio pendiente más viejo: cuánto atrasada está la base respecto de la memoria.
+     */
+    public Duration getRezago() {
+        synchronized (pendientes) {
+            long masVieja = Long.MAX_VALUE;
+            for (Fila fila : pendientes.values()) {
+                masVieja = Math.min(masVieja, fila.encoladaNanos());
+            }
+            return masVieja == Long.MAX_VALUE ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - masVieja);
+        }
+    }
+
+    public long getEncolados() {
+        return encolados.get();
+    }
+
+    public long getEscritas() {
+        return escritas.get();
+    }
+
+    public long getFallidas() {
+        return fallidas.get();
+    }
+
+    /**
+     * Citas cuyo último cambio se descartó y todavía no se escribió bien, con el último rechazo de cada una.
+     */
+    public List<Rechazo> getRechazadas() {
+        synchronized (rechazadas) {
+            return new ArrayList<>(rechazadas.values());
+        }
+    }
+
+    public long getLotes() {
+        return lotes.get();
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+}
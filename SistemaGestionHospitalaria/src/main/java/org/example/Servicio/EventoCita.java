@@ -0,0 +1,73 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+import org.example.entidades.EstadoCita;
+
+/**
+ * Evento del ciclo de vida de una cita. Las instancias son las ranuras preasignadas del
+ * {@link BusEventosCita} y se reutilizan: un consumidor que necesite conservar datos de un
+ * evento después de procesar el lote debe copiarlos.
+ */
+public final class EventoCita {
+
+    public enum Tipo {
+        PROGRAMADA,
+        INICIADA,
+        COMPLETADA,
+        CANCELADA,
+        NO_ASISTIO;
+
+        static Tipo desde(EstadoCita estado) {
+            return switch (estado) {
+                case PROGRAMADA -> PROGRAMADA;
+                case EN_CURSO -> INICIADA;
+                case COMPLETADA -> COMPLETADA;
+                case CANCELADA -> CANCELADA;
+                case NO_ASISTIO -> NO_ASISTIO;
+            };
+        }
+    }
+
+    private long secuencia;
+    private Tipo tipo;
+    private Cita cita;
+    private long instante;
+
+    EventoCita() {
+    }
+
+    void cargar(long secuencia, Tipo tipo, Cita cita, long instante) {
+        this.secuencia = secuencia;
+        this.tipo = tipo;
+        this.cita = cita;
+        this.instante = instante;
+    }
+
+    void limpiar() {
+        this.cita = null;
+    }
+
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public Cita getCita() {
+        return cita;
+    }
+
+    /**
+     * Momento de publicación en milisegundos desde la época.
+     */
+    public long getInstante() {
+        return instante;
+    }
+
+    @Override
+    public String toString() {
+        return "EventoCita{" + secuencia + ", " + tipo + ", cita=" + (cita != null ? cita.getIdCita() : null) + "}";
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exportaciones grandes (reportes al ministerio) leídas directamente de la base. Las consultas
+ * proyectan columnas escalares y se recorren como stream con fetch size, sin cargar entidades
+ * en el contexto de persistencia, y el {@link ExportadorDatos} las escribe a medida que llegan.
+ *
+ * <p>Las citas que caen en el rango archivado se leen también de {@code cita_archivo} y se intercalan
+ * en orden con las de la tabla activa. Con un {@link ArchivoCitas} compartido se usa su límite; sin él,
+ * el límite se lee de la base en cada exportación.</p>
+ */
+public class ExportacionService {
+
+    private static final int FETCH_SIZE = 1_000;
+
+    public static final List<String> COLUMNAS_CITAS = List.of(
+            "id", "fecha_hora", "estado", "costo", "dni_paciente", "dni_medico", "especialidad", "sala", "hospital");
+
+    public static final List<String> COLUMNAS_PACIENTES = List.of(
+            "id", "dni", "apellido", "nombre", "fecha_nacimiento", "tipo_sangre", "telefono", "hospital");
+
+    private static final String COLUMNAS_CITA = "p.dni, m.dni, m.especialidad, s.numero, h.nombre ";
+    private static final Comparator<Object[]> ORDEN_CITAS = Comparator
+            .comparing((Object[] fila) -> (LocalDateTime) fila[1])
+            .thenComparing(fila -> (Long) fila[0]);
+
+    private final EntityManager em;
+    private final ArchivoCitas archivo;
+
+    public ExportacionService(EntityManager em) {
+        this(em, null);
+    }
+
+    public ExportacionService(EntityManager em, ArchivoCitas archivo) {
+        this.em = em;
+        this.archivo = archivo;
+    }
+
+    /**
+     * Citas con fecha en [desde, hasta), en orden de fecha.
+     */
+    public ExportadorDatos.Resultado exportarCitas(Path destino, LocalDateTime desde, LocalDateTime hasta,
+                                                   ExportadorDatos exportador) throws IOException {
+        Stream<Object[]> filas = citas(
+                "SELECT c.idCita, c.fechaHora, c.estado, c.costo, " + COLUMNAS_CITA
+                        + "FROM Cita c JOIN c.paciente p JOIN c.medico m JOIN c.sala s "
+                        + "JOIN s.departamento d LEFT JOIN d.hospital h "
+                        + "WHERE c.fechaHora >= :desde AND c.fechaHora < :hasta "
+                        + "ORDER BY c.fechaHora, c.idCita", desde, hasta);
+        if (archivo != null ? archivo.alcanza(desde) : ArchivoCitas.alcanza(em, desde)) {
+            filas = ArchivoCitas.intercalar(citas(
+                    "SELECT a.idCita, a.fechaHora, a.estado, a.costo, " + COLUMNAS_CITA
+                            + "FROM CitaArchivada a JOIN a.paciente p JOIN a.medico m JOIN a.sala s "
+                            + "JOIN s.departamento d LEFT JOIN d.hospital h "
+                            + "WHERE a.fechaHora >= :desde AND a.fechaHora < :hasta "
+                            + "ORDER BY a.fechaHora, a.idCita", desde, hasta), filas, ORDEN_CITAS);
+        }
+        return exportador.exportar(destino, COLUMNAS_CITAS, filas);
+    }
+
+    private Stream<Object[]> citas(String jpql, LocalDateTime desde, LocalDateTime hasta) {
+        return em.createQuery(jpql, Object[].class)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream();
+    }
+
+    public ExportadorDatos.Resultado exportarPacientes(Path destino, ExportadorDatos exportador) throws IOException {
+        return exportador.exportar(destino, COLUMNAS_PACIENTES, em.createQuery(
+                        "SELECT p.id, p.dni, p.apellido, p.nombre, p.fechaNacimiento, p.tipoSangre, p.telefono, h.nombre "
+                                + "FROM Paciente p LEFT JOIN p.hospital h ORDER BY p.id",
+                        Object[].class)
+                .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream());
+    }
+}
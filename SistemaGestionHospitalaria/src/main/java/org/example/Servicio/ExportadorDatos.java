@@ -0,0 +1,263 @@
+package org.example.Servicio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Motor de exportación por streaming a CSV o JSON Lines, opcionalmente comprimido con gzip.
+ * Las filas se consumen de a una desde un {@link Stream} (de una consulta o de un índice en memoria)
+ * y se codifican en un único buffer de tamaño fijo que se vuelca a un canal NIO cuando se llena,
+ * así que la memoria usada no depende de la cantidad de filas.
+ *
+ * <p>El CSV sigue RFC 4180: los valores con coma, comillas o saltos de línea van entre comillas.
+ * En JSON Lines cada fila es un objeto con las columnas como claves; números y booleanos van
+ * sin comillas y el resto (fechas, enums) como texto.</p>
+ */
+public class ExportadorDatos {
+
+    public enum Formato {
+        CSV,
+        JSON_LINES
+    }
+
+    /**
+     * Se llama cada {@code intervaloProgreso} filas y al terminar.
+     */
+    @FunctionalInterface
+    public interface Progreso {
+        void avance(long filas, long bytes);
+    }
+
+    /**
+     * {@code bytes} cuenta el texto generado, antes de comprimir.
+     */
+    public record Resultado(long filas, long bytes, Duration duracion) {
+    }
+
+    private final Formato formato;
+    private final boolean gzip;
+    private final int tamanoBuffer;
+    private final long intervaloProgreso;
+    private final Progreso progreso;
+
+    public ExportadorDatos(Formato formato, boolean gzip) {
+        this(formato, gzip, 64 * 1024, 100_000, null);
+    }
+
+    public ExportadorDatos(Formato formato, boolean gzip, int tamanoBuffer, long intervaloProgreso, Progreso progreso) {
+        this.formato = Objects.requireNonNull(formato, "El formato no puede ser nulo");
+        if (tamanoBuffer < 1024 || intervaloProgreso <= 0) {
+            throw new IllegalArgumentException("El buffer debe tener al menos 1 KB y el intervalo de progreso ser positivo");
+        }
+        this.gzip = gzip;
+        this.tamanoBuffer = tamanoBuffer;
+        this.intervaloProgreso = intervaloProgreso;
+        this.progreso = progreso;
+    }
+
+    /**
+     * Exporta las filas al archivo, reemplazándolo si existe. El stream se cierra al terminar.
+     */
+    public Resultado exportar(Path destino, List<String> columnas, Stream<Object[]> filas) throws IOException {
+        Objects.requireNonNull(destino, "El destino no puede ser nulo");
+        if (columnas.isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos una columna");
+        }
+        long inicio = System.nanoTime();
+        try (Stream<Object[]> cerrar = filas;
+             FileChannel archivo = FileChannel.open(destino, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Escritor escritor = new Escritor(abrirCanal(archivo))) {
+
+            if (formato == Formato.CSV) {
+                for (int i = 0; i < columnas.size(); i++) {
+                    if (i > 0) {
+                        escritor.linea.append(',');
+                    }
+                    agregarCsv(escritor.linea, columnas.get(i));
+                }
+                escritor.terminarLinea();
+            }
+
+            long cantidad = 0;
+            Iterator<Object[]> it = cerrar.iterator();
+            while (it.hasNext()) {
+                Object[] fila = it.next();
+                if (fila.length != columnas.size()) {
+                    throw new IllegalArgumentException("La fila " + (cantidad + 1) + " tiene " + fila.length
+                            + " valores y hay " + columnas.size() + " columnas");
+                }
+                if (formato == Formato.CSV) {
+                    escribirCsv(escritor.linea, fila);
+                } else {
+                    escribirJson(escritor.linea, columnas, fila);
+                }
+                escritor.terminarLinea();
+                cantidad++;
+                if (progreso != null && cantidad % intervaloProgreso == 0) {
+                    progreso.avance(cantidad, escritor.bytes);
+                }
+            }
+            escritor.volcar();
+            if (progreso != null) {
+                progreso.avance(cantidad, escritor.bytes);
+            }
+            return new Resultado(cantidad, escritor.bytes, Duration.ofNanos(System.nanoTime() - inicio));
+        }
+    }
+
+    private WritableByteChannel abrirCanal(FileChannel archivo) throws IOException {
+        if (!gzip) {
+            return archivo;
+        }
+        OutputStream comprimido = new GZIPOutputStream(Channels.newOutputStream(archivo), tamanoBuffer);
+        return Channels.newChannel(comprimido);
+    }
+
+    private static void escribirCsv(StringBuilder linea, Object[] fila) {
+        for (int i = 0; i < fila.length; i++) {
+            if (i > 0) {
+                linea.append(',');
+            }
+            if (fila[i] != null) {
+                agregarCsv(linea, texto(fila[i]));
+            }
+        }
+    }
+
+    private static void agregarCsv(StringBuilder linea, String valor) {
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            linea.append(valor);
+            return;
+        }
+        linea.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                linea.append('"');
+            }
+            linea.append(c);
+        }
+        linea.append('"');
+    }
+
+    private static void escribirJson(StringBuilder linea, List<String> columnas, Object[] fila) {
+        linea.append('{');
+        for (int i = 0; i < fila.length; i++) {
+            if (i > 0) {
+                linea.append(',');
+            }
+            agregarJson(linea, columnas.get(i));
+            linea.append(':');
+            Object valor = fila[i];
+            if (valor == null) {
+                linea.append("null");
+            } else if (valor instanceof Number || valor instanceof Boolean) {
+                linea.append(texto(valor));
+            } else {
+                agregarJson(linea, texto(valor));
+            }
+        }
+        linea.append('}');
+    }
+
+    private static void agregarJson(StringBuilder linea, String valor) {
+        linea.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> linea.append("\\\"");
+                case '\\' -> linea.append("\\\\");
+                case '\n' -> linea.append("\\n");
+                case '\r' -> linea.append("\\r");
+                case '\t' -> linea.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        linea.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        linea.append(c);
+                    }
+                }
+            }
+        }
+        linea.append('"');
+    }
+
+    private static String texto(Object valor) {
+        if (valor instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (valor instanceof Enum<?> constante) {
+            return constante.name();
+        }
+        return valor.toString();
+    }
+
+    // Codifica cada línea en UTF-8 sobre un buffer fijo y lo vuelca al canal cuando se llena
+    private final class Escritor implements AutoCloseable {
+        final StringBuilder linea = new StringBuilder(256);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(tamanoBuffer);
+        final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        final WritableByteChannel canal;
+        long bytes;
+
+        Escritor(WritableByteChannel canal) {
+            this.canal = canal;
+        }
+
+        void terminarLinea() throws IOException {
+            linea.append('\n');
+            CharBuffer caracteres = CharBuffer.wrap(linea);
+            while (true) {
+                CoderResult resultado = encoder.encode(caracteres, buffer, true);
+                if (resultado.isOverflow()) {
+                    volcar();
+                } else if (resultado.isError()) {
+                    resultado.throwException();
+                } else {
+                    break;
+                }
+            }
+            encoder.reset();
+            linea.setLength(0);
+        }
+
+        void volcar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                bytes += canal.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Cierra el gzip (escribe su cola); el FileChannel lo cierra el try que lo abrió
+            if (gzip) {
+                canal.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package org.example.Servicio;
+
+import org.example.entidades.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Genera datos sintéticos válidos y reproducibles según una {@link EscalaDatos}.
+ * Cada hospital se genera de forma independiente (médicos, pacientes y citas dependen
+ * solo de la semilla y de su índice), así que se puede generar y cargar en paralelo.
+ */
+public class GeneradorDatos {
+
+    /** Cantidad máxima de personas con DNI distinto (8 dígitos a partir de 10.000.000). */
+    static final long MAX_PERSONAS = 80_000_000L;
+    /** Con matrículas MP-10000 en adelante, el máximo de 6 dígitos es MP-999999. */
+    static final int MAX_MEDICOS = 990_000;
+
+    private static final long BASE_DNI = 10_000_000L;
+    // Primo coprimo con MAX_PERSONAS: recorre el rango de DNI sin repetir
+    private static final long MULTIPLICADOR_DNI = 48_271L;
+    private static final long BASE_MATRICULA = 10_000L;
+
+    private static final int TURNOS_POR_DIA = 5;
+    private static final int HORA_PRIMER_TURNO = 8;
+    private static final int DURACION_TURNO_HORAS = 2;
+
+    private static final String[] NOMBRES = {
+            "María", "Juan", "Lucía", "Diego", "Sofía", "Martín", "Valentina", "Santiago", "Camila", "Matías",
+            "Florencia", "Nicolás", "Agustina", "Facundo", "Julieta", "Tomás", "Carolina", "Federico", "Paula", "Joaquín"
+    };
+    private static final String[] APELLIDOS = {
+            "González", "Rodríguez", "Gómez", "Fernández", "López", "Díaz", "Martínez", "Pérez", "García", "Sánchez",
+            "Romero", "Sosa", "Álvarez", "Torres", "Ruiz", "Ramírez", "Flores", "Acosta", "Benítez", "Medina"
+    };
+    private static final String[] CALLES = {
+            "Av. Corrientes", "Av. Rivadavia", "Av. Santa Fe", "Av. Belgrano", "San Martín", "Mitre",
+            "Sarmiento", "Av. Cabildo", "Lavalle", "Av. Callao", "Tucumán", "Av. de Mayo"
+    };
+    private static final String[] NOMBRES_HOSPITAL = {
+            "Hospital Italiano", "Hospital Alemán", "Hospital Británico", "Hospital Fernández",
+            "Hospital Durand", "Hospital Posadas", "Sanatorio Güemes", "Hospital Argerich"
+    };
+
+    // Frecuencia aproximada de cada grupo sanguíneo, en milésimas y en el orden de TipoSangre
+    private static final int[] FRECUENCIA_SANGRE = {340, 35, 80, 10, 25, 5, 450, 55};
+    private static final TipoSangre[] TIPOS_SANGRE = TipoSangre.values();
+    private static final EspecialidadMedica[] ESPECIALIDADES = EspecialidadMedica.values();
+
+    private final EscalaDatos escala;
+    // Para generar sin base: una entrada sin persistir por tipo, compartida por todas las salas
+    private final Map<String, EntradaCatalogo> tiposSala = new ConcurrentHashMap<>();
+
+    public GeneradorDatos(EscalaDatos escala) {
+        this.escala = Objects.requireNonNull(escala, "La escala no puede ser nula");
+        if (escala.medicos() > MAX_MEDICOS) {
+            throw new IllegalArgumentException("Demasiados médicos para el rango de matrículas disponible");
+        }
+    }
+
+    public EscalaDatos getEscala() {
+        return escala;
+    }
+
+    /**
+     * Genera el hospital con un departamento por especialidad, sus salas y los médicos que le tocan.
+     * Los médicos se reparten en forma circular: el médico i va al hospital i % hospitales.
+     */
+    public Hospital generarHospital(int indice) {
+        return generarHospital(indice, descripcion -> tiposSala.computeIfAbsent(descripcion,
+                d -> new EntradaCatalogo(TipoCatalogo.TIPO_SALA, d)));
+    }
+
+    /**
+     * Como {@link #generarHospital(int)}, pero con los tipos de sala que devuelve {@code tiposSala}
+     * (por ejemplo, entradas ya persistidas de {@link CatalogoClinico}).
+     */
+    public Hospital generarHospital(int indice, Function<String, EntradaCatalogo> tiposSala) {
+        validarIndice(indice);
+        SplittableRandom rnd = aleatorio(-1L - indice);
+
+        Hospital hospital = Hospital.builder()
+                .nombre(NOMBRES_HOSPITAL[indice % NOMBRES_HOSPITAL.length] + " " + (indice / NOMBRES_HOSPITAL.length + 1))
+                .direccion(direccion(rnd))
+                .telefono(String.format("011-%04d-%04d", rnd.nextInt(4000, 7000), rnd.nextInt(10_000)))
+                .build();
+
+        Map<EspecialidadMedica, Departamento> porEspecialidad = new EnumMap<>(EspecialidadMedica.class);
+        for (EspecialidadMedica esp : ESPECIALIDADES) {
+            Departamento departamento = Departamento.builder()
+                    .nombre(esp.getDescripcion())
+                    .especialidad(esp)
+                    .build();
+            hospital.agregarDepartamento(departamento);
+            for (int s = 1; s <= escala.salasPorDepartamento(); s++) {
+                departamento.crearSala(numeroSala(indice, esp, s), tiposSala.apply(tipoSala(esp, s)));
+            }
+            porEspecialidad.put(esp, departamento);
+        }
+
+        for (int i = indice; i < escala.medicos(); i += escala.hospitales()) {
+            EspecialidadMedica esp = ESPECIALIDADES[(i / escala.hospitales()) % ESPECIALIDADES.length];
+            porEspecialidad.get(esp).agregarMedico(generarMedico(i, esp));
+        }
+        return hospital;
+    }
+
+    public int cantidadPacientes(int indiceHospital) {
+        return (int) reparto(escala.pacientes(), indiceHospital);
+    }
+
+    public long cantidadCitas(int indiceHospital) {
+        return reparto(escala.citas(), indiceHospital);
+    }
+
+    /**
+     * Genera los pacientes [desde, desde + cantidad) del hospital y los asocia a él.
+     * Cada paciente depende solo de su posición, así que el tamaño de lote no cambia el resultado.
+     */
+    public List<Paciente> generarPacientes(Hospital hospital, int indiceHospital, int desde, int cantidad) {
+        validarIndice(indiceHospital);
+        if (desde < 0 || cantidad < 0 || desde + cantidad > cantidadPacientes(indiceHospital)) {
+            throw new IllegalArgumentException("Rango de pacientes fuera de la escala del hospital");
+        }
+        long primero = escala.medicos() + primerPaciente(indiceHospital);
+        List<Paciente> pacientes = new ArrayList<>(cantidad);
+        for (int k = desde; k < desde + cantidad; k++) {
+            long indicePersona = primero + k;
+            SplittableRandom rnd = aleatorio(indicePersona);
+            Paciente paciente = Paciente.builder()
+                    .nombre(NOMBRES[rnd.nextInt(NOMBRES.length)])
+                    .apellido(APELLIDOS[rnd.nextInt(APELLIDOS.length)])
+                    .dni(dni(indicePersona))
+                    .fechaNacimiento(fechaEntre(rnd, 1935, 2024))
+                    .tipoSangre(tipoSangre(rnd))
+                    .telefono(String.format("011-%04d-%04d", rnd.nextInt(4000, 7000), rnd.nextInt(10_000)))
+                    .direccion(direccion(rnd))
+                    .build();
+            paciente.setHospital(hospital);
+            pacientes.add(paciente);
+        }
+        return pacientes;
+    }
+
+    /**
+     * Genera en forma perezosa las citas del hospital sin conflictos de médico ni de sala.
+     * En cada departamento los turnos se ocupan por "carriles": en un mismo turno el carril j
+     * usa la sala j y médicos consecutivos, distintos mientras haya al menos tantos médicos
+     * como carriles. Las citas anteriores a la fecha de corte quedan finalizadas.
+     * Si el hospital no tiene médicos no se generan citas.
+     */
+    public Iterator<Cita> generarCitas(Hospital hospital, int indiceHospital, List<Paciente> pacientes) {
+        validarIndice(indiceHospital);
+        List<Departamento> departamentos = new ArrayList<>();
+        for (Departamento d : hospital.getDepartamentos()) {
+            if (!d.getMedicos().isEmpty() && !d.getSalas().isEmpty()) {
+                departamentos.add(d);
+            }
+        }
+        long total = departamentos.isEmpty() || pacientes.isEmpty() ? 0 : cantidadCitas(indiceHospital);
+        return new IteradorCitas(departamentos, pacientes, total, aleatorio(-1_000_000L - indiceHospital));
+    }
+
+    private class IteradorCitas implements Iterator<Cita> {
+        private final List<Departamento> departamentos;
+        private final List<Paciente> pacientes;
+        private final long total;
+        private final SplittableRandom rnd;
+
+        private int departamentoActual = -1;
+        private long restantesDepartamento;
+        private long turnoEnDepartamento;
+        private long generadas;
+        private List<Medico> medicos;
+        private List<Sala> salas;
+        private int carriles;
+
+        IteradorCitas(List<Departamento> departamentos, List<Paciente> pacientes, long total, SplittableRandom rnd) {
+            this.departamentos = departamentos;
+            this.pacientes = pacientes;
+            this.total = total;
+            this.rnd = rnd;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return generadas < total;
+        }
+
+        @Override
+        public Cita next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            while (restantesDepartamento == 0) {
+                siguienteDepartamento();
+            }
+            long turno = turnoEnDepartamento / carriles;
+            int carril = (int) (turnoEnDepartamento % carriles);
+            Medico medico = medicos.get((int) ((turno * carriles + carril) % medicos.size()));
+            Sala sala = salas.get(carril);
+            LocalDateTime fechaHora = escala.fechaInicio()
+                    .atTime(HORA_PRIMER_TURNO, 0)
+                    .plusDays(turno / TURNOS_POR_DIA)
+                    .plusHours((turno % TURNOS_POR_DIA) * DURACION_TURNO_HORAS);
+
+            Cita cita = Cita.builder()
+                    .paciente(pacientes.get(rnd.nextInt(pacientes.size())))
+                    .medico(medico)
+                    .sala(sala)
+                    .fechaHora(fechaHora)
+                    .costo(costo(medico.getEspecialidad(), rnd))
+                    .estado(estado(fechaHora, rnd))
+                    .build();
+
+            turnoEnDepartamento++;
+            restantesDepartamento--;
+            generadas++;
+            return cita;
+        }
+
+        private void siguienteDepartamento() {
+            departamentoActual++;
+            Departamento d = departamentos.get(departamentoActual);
+            medicos = new ArrayList<>(d.getMedicos());
+            salas = d.getSalas();
+            carriles = Math.min(medicos.size(), salas.size());
+            turnoEnDepartamento = 0;
+            restantesDepartamento = total / departamentos.size()
+                    + (departamentoActual < total % departamentos.size() ? 1 : 0);
+        }
+    }
+
+    private Medico generarMedico(int indice, EspecialidadMedica especialidad) {
+        SplittableRandom rnd = aleatorio(indice);
+        return Medico.builder()
+                .nombre(NOMBRES[rnd.nextInt(NOMBRES.length)])
+                .apellido(APELLIDOS[rnd.nextInt(APELLIDOS.length)])
+                .dni(dni(indice))
+                .fechaNacimiento(fechaEntre(rnd, 1955, 1995))
+                .tipoSangre(tipoSangre(rnd))
+                .numeroMatricula("MP-" + (BASE_MATRICULA + indice))
+                .especialidad(especialidad)
+                .build();
+    }
+
+    private EstadoCita estado(LocalDateTime fechaHora, SplittableRandom rnd) {
+        if (!fechaHora.toLocalDate().isBefore(escala.fechaCorte())) {
+            return EstadoCita.PROGRAMADA;
+        }
+        int r = rnd.nextInt(100);
+        if (r < 80) {
+            return EstadoCita.COMPLETADA;
+        }
+        return r < 92 ? EstadoCita.CANCELADA : EstadoCita.NO_ASISTIO;
+    }
+
+    private BigDecimal costo(EspecialidadMedica especialidad, SplittableRandom rnd) {
+        long centavos = (8_000L + especialidad.ordinal() * 1_500L + rnd.nextInt(4_000)) * 100 + rnd.nextInt(100);
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    private TipoSangre tipoSangre(SplittableRandom rnd) {
+        int r = rnd.nextInt(1000);
+        for (int i = 0; i < FRECUENCIA_SANGRE.length; i++) {
+            r -= FRECUENCIA_SANGRE[i];
+            if (r < 0) {
+                return TIPOS_SANGRE[i];
+            }
+        }
+        return TipoSangre.O_POSITIVO;
+    }
+
+    private String numeroSala(int indiceHospital, EspecialidadMedica especialidad, int sala) {
+        String prefijo = especialidad.name().substring(0, 4);
+        return String.format("H%02d-%s-%d%02d", indiceHospital + 1, prefijo, especialidad.ordinal() + 1, sala);
+    }
+
+    private String tipoSala(EspecialidadMedica especialidad, int sala) {
+        boolean quirurgica = especialidad == EspecialidadMedica.TRAUMATOLOGIA
+                || especialidad == EspecialidadMedica.CIRUGIA_GENERAL
+                || especialidad == EspecialidadMedica.ANESTESIOLOGIA;
+        return quirurgica && sala == 1 ? "Quirófano" : "Consultorio";
+    }
+
+    private String direccion(SplittableRandom rnd) {
+        return CALLES[rnd.nextInt(CALLES.length)] + " " + rnd.nextInt(100, 6000);
+    }
+
+    private LocalDate fechaEntre(SplittableRandom rnd, int anioDesde, int anioHasta) {
+        long desde = LocalDate.of(anioDesde, 1, 1).toEpochDay();
+        long hasta = LocalDate.of(anioHasta, 12, 31).toEpochDay();
+        return LocalDate.ofEpochDay(rnd.nextLong(desde, hasta + 1));
+    }
+
+    static String dni(long indicePersona) {
+        return String.valueOf(BASE_DNI + (indicePersona * MULTIPLICADOR_DNI) % MAX_PERSONAS);
+    }
+
+    private long reparto(long total, int indice) {
+        int partes = escala.hospitales();
+        return total / partes + (indice < total % partes ? 1 : 0);
+    }
+
+    private long primerPaciente(int indiceHospital) {
+        int partes = escala.hospitales();
+        return (long) indiceHospital * (escala.pacientes() / partes) + Math.min(indiceHospital, escala.pacientes() % partes);
+    }
+
+    private SplittableRandom aleatorio(long clave) {
+        return new SplittableRandom(escala.semilla() * 0x9E3779B97F4A7C15L + clave);
+    }
+
+    private void validarIndice(int indice) {
+        if (indice < 0 || indice >= escala.hospitales()) {
+            throw new IllegalArgumentException("Índice de hospital fuera de rango: " + indice);
+        }
+    }
+}
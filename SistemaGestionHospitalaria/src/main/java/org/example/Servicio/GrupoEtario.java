@@ -0,0 +1,33 @@
+package org.example.Servicio;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Rangos de edad de los reportes demográficos, con la edad en años cumplidos como en
+ * {@link org.example.entidades.Paciente#getEdad} ({@code Period}, no la resta de años de {@code Persona.getEdad}).
+ */
+@Getter
+@RequiredArgsConstructor
+public enum GrupoEtario {
+    NINO(0, 12),
+    ADOLESCENTE(13, 17),
+    ADULTO_JOVEN(18, 39),
+    ADULTO(40, 64),
+    MAYOR(65, Integer.MAX_VALUE);
+
+    private final int desde;
+    private final int hasta;
+
+    /**
+     * Grupo de una edad en años cumplidos; es el que {@link DemografiaService} calcula en SQL.
+     */
+    public static GrupoEtario de(int edad) {
+        for (GrupoEtario grupo : values()) {
+            if (edad <= grupo.hasta) {
+                return grupo;
+            }
+        }
+        return MAYOR;
+    }
+}
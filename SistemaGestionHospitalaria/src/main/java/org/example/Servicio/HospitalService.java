@@ -6,6 +6,10 @@ import org.example.entidades.Hospital;
 
 import java.util.Optional;
 
+/**
+ * Consultas y reportes de hospitales. Para reportes pesados conviene construirlo con un EntityManager
+ * de {@link PersistenciaReportes} y no con el de las reservas.
+ */
 public class HospitalService {
 
     private final EntityManager em;
@@ -15,7 +19,19 @@ public class HospitalService {
     }
 
     public void mostrarInformacionHospital(Long id) {
-        consultarHospitalPorId(id).ifPresentOrElse(
+        // Las dos colecciones se traen por separado para no multiplicar departamentos por pacientes;
+        // la historia clínica va en el fetch porque el uno a uno inverso se cargaría de a un paciente
+        em.createQuery("SELECT h FROM Hospital h LEFT JOIN FETCH h.pacientes p LEFT JOIN FETCH p.historiaClinica "
+                        + "WHERE h.id = :id", Hospital.class)
+                .setParameter("id", id)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultList();
+        em.createQuery("SELECT h FROM Hospital h LEFT JOIN FETCH h.departamentos WHERE h.id = :id", Hospital.class)
+                .setParameter("id", id)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()
+                .findFirst()
+                .ifPresentOrElse(
                 hospital -> {
                     System.out.println(hospital.getNombre());
                     System.out.println("Dirección: " + hospital.getDireccion());
@@ -45,10 +61,7 @@ public class HospitalService {
         Long totalMedicos = em.createQuery("SELECT COUNT(m) FROM Medico m", Long.class)
                 .getSingleResult();
 
-        Long totalCitasProgramadas = em.createQuery(
-                        "SELECT COUNT(c) FROM Cita c WHERE c.estado = :estado", Long.class)
-                .setParameter("estado", EstadoCita.PROGRAMADA)
-                .getSingleResult();
+        long totalCitasProgramadas = ArchivoCitas.contarPorEstado(em, EstadoCita.PROGRAMADA);
 
         // Mostrar en consola estilo dashboard
         System.out.println("===== DASHBOARD DE RECURSOS DEL HOSPITAL =====");
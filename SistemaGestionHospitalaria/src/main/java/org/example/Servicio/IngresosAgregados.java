@@ -0,0 +1,148 @@
+package org.example.Servicio;
+
+import org.example.entidades.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ingresos materializados por médico, departamento, hospital y red, por mes y en total.
+ * Se actualizan en forma incremental escuchando al {@link CitaManager}: una cita programada
+ * o en curso suma a lo comprometido, una completada pasa a lo realizado, y una cancelada
+ * o no asistida deja de sumar. Internamente todo se acumula en centavos como {@code long};
+ * el {@link BigDecimal} solo aparece al entrar (costo de la cita) y al salir (consultas),
+ * así que cada consulta es una búsqueda O(1).
+ */
+public class IngresosAgregados implements CitaObservador {
+
+    public record ResumenIngresos(BigDecimal realizados, BigDecimal comprometidos, long citasCompletadas) {
+    }
+
+    private static final Object RED = new Object();
+
+    // mes == null acumula todos los meses del dueño
+    private record Clave(Object duenio, YearMonth mes) {
+    }
+
+    private static final class Acumulado {
+        final AtomicLong realizadosCentavos = new AtomicLong();
+        final AtomicLong comprometidosCentavos = new AtomicLong();
+        final AtomicLong completadas = new AtomicLong();
+    }
+
+    private final Map<Clave, Acumulado> acumulados = new ConcurrentHashMap<>();
+
+    public IngresosAgregados(CitaManager citaManager) {
+        if (citaManager != null) {
+            citaManager.agregarObservador(this);
+        }
+    }
+
+    /**
+     * Incorpora citas que ya existían antes de empezar a escuchar.
+     */
+    public void cargar(Collection<Cita> citas) {
+        for (Cita cita : citas) {
+            aplicar(cita, cita.getEstado(), 1);
+        }
+    }
+
+    @Override
+    public void alProgramar(Cita cita) {
+        aplicar(cita, cita.getEstado(), 1);
+    }
+
+    @Override
+    public void alCambiarEstado(Cita cita, EstadoCita anterior) {
+        aplicar(cita, anterior, -1);
+        aplicar(cita, cita.getEstado(), 1);
+    }
+
+    private void aplicar(Cita cita, EstadoCita estado, int signo) {
+        boolean completada = estado == EstadoCita.COMPLETADA;
+        boolean comprometida = estado == EstadoCita.PROGRAMADA || estado == EstadoCita.EN_CURSO;
+        if (!completada && !comprometida) {
+            return;
+        }
+        long centavos = signo * aCentavos(cita.getCosto());
+        YearMonth mes = YearMonth.from(cita.getFechaHora());
+        Departamento departamento = cita.getSala().getDepartamento();
+
+        acumular(cita.getMedico(), mes, centavos, completada, signo);
+        acumular(departamento, mes, centavos, completada, signo);
+        if (departamento.getHospital() != null) {
+            acumular(departamento.getHospital(), mes, centavos, completada, signo);
+        }
+        acumular(RED, mes, centavos, completada, signo);
+    }
+
+    private void acumular(Object duenio, YearMonth mes, long centavos, boolean completada, int signo) {
+        acumular(acumulados.computeIfAbsent(new Clave(duenio, mes), c -> new Acumulado()), centavos, completada, signo);
+        acumular(acumulados.computeIfAbsent(new Clave(duenio, null), c -> new Acumulado()), centavos, completada, signo);
+    }
+
+    private void acumular(Acumulado acumulado, long centavos, boolean completada, int signo) {
+        if (completada) {
+            acumulado.realizadosCentavos.addAndGet(centavos);
+            acumulado.completadas.addAndGet(signo);
+        } else {
+            acumulado.comprometidosCentavos.addAndGet(centavos);
+        }
+    }
+
+    // Las citas con fracciones de centavo se rechazan al crearlas: si llega una, es un error y no se redondea
+    static long aCentavos(BigDecimal monto) {
+        return monto.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal desdeCentavos(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    public ResumenIngresos resumen(Medico medico) {
+        return resumen(medico, null);
+    }
+
+    public ResumenIngresos resumen(Medico medico, YearMonth mes) {
+        return consultar(medico, mes);
+    }
+
+    public ResumenIngresos resumen(Departamento departamento) {
+        return resumen(departamento, null);
+    }
+
+    public ResumenIngresos resumen(Departamento departamento, YearMonth mes) {
+        return consultar(departamento, mes);
+    }
+
+    public ResumenIngresos resumen(Hospital hospital) {
+        return resumen(hospital, null);
+    }
+
+    public ResumenIngresos resumen(Hospital hospital, YearMonth mes) {
+        return consultar(hospital, mes);
+    }
+
+    public ResumenIngresos resumenRed() {
+        return consultar(RED, null);
+    }
+
+    public ResumenIngresos resumenRed(YearMonth mes) {
+        return consultar(RED, mes);
+    }
+
+    private ResumenIngresos consultar(Object duenio, YearMonth mes) {
+        Acumulado acumulado = acumulados.get(new Clave(duenio, mes));
+        if (acumulado == null) {
+            return new ResumenIngresos(desdeCentavos(0), desdeCentavos(0), 0);
+        }
+        return new ResumenIngresos(desdeCentavos(acumulado.realizadosCentavos.get()),
+                desdeCentavos(acumulado.comprometidosCentavos.get()),
+                acumulado.completadas.get());
+    }
+}
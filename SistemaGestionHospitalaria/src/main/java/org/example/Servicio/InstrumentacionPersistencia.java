@@ -0,0 +1,315 @@
+package org.example.Servicio;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Instrumentación de la capa de persistencia para detectar consultas de más (N+1) antes de producción.
+ * Registra, por unidad de trabajo, cada sentencia JDBC con sus parámetros y su duración, y cuántas
+ * entidades de cada tipo se cargaron.
+ *
+ * <p>Se engancha al crear el EntityManagerFactory pasando {@link #propiedades()}: las conexiones se
+ * envuelven para ver las sentencias con sus parámetros y un listener de post-load cuenta las cargas.
+ * Una unidad de trabajo es lo que corre dentro de {@link #medir} o {@link #verificarMaximo} en el hilo
+ * que la llama; lo que se ejecute en otros hilos no se cuenta.</p>
+ *
+ * <pre>{@code
+ * InstrumentacionPersistencia instrumentacion = new InstrumentacionPersistencia(Duration.ofMillis(50), 5);
+ * EntityManagerFactory emf = Persistence.createEntityManagerFactory("hospital-persistence-unit",
+ *         instrumentacion.propiedades());
+ * instrumentacion.verificarMaximo("conteo por especialidad", 1, medicoService::contarMedicosPorEspecialidad);
+ * }</pre>
+ */
+public class InstrumentacionPersistencia {
+
+    /**
+     * Una ida a la base. En un batch {@code lote} es la cantidad de filas y {@code parametros} los de la primera.
+     */
+    public record Sentencia(String sql, List<Object> parametros, int lote, Duration duracion) {
+
+        @Override
+        public String toString() {
+            return String.format("%.2f ms %s %s%s", duracion.toNanos() / 1e6, sql, parametros,
+                    lote > 1 ? " x" + lote : "");
+        }
+    }
+
+    public record Reporte(String nombre, List<Sentencia> sentencias, Map<String, Long> cargasPorEntidad,
+                          Map<String, Integer> sospechasNMasUno, Duration duracion) {
+
+        public int cantidadSentencias() {
+            return sentencias.size();
+        }
+
+        public long cantidadCargas() {
+            return cargasPorEntidad.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder texto = new StringBuilder(nombre).append(": ").append(sentencias.size())
+                    .append(" sentencias, ").append(cantidadCargas()).append(" entidades cargadas ")
+                    .append(cargasPorEntidad).append(" en ").append(duracion.toMillis()).append(" ms");
+            sospechasNMasUno.forEach((sql, veces) ->
+                    texto.append("\n  posible N+1 (").append(veces).append(" veces): ").append(sql));
+            return texto.toString();
+        }
+    }
+
+    // Lo que se va juntando en el hilo de la unidad de trabajo en curso
+    private static final class Registro {
+        final List<Sentencia> sentencias = new ArrayList<>();
+        final Map<String, Long> cargas = new TreeMap<>();
+    }
+
+    private final ThreadLocal<Registro> actual = new ThreadLocal<>();
+    private final Duration umbralLento;
+    private final int umbralRepeticiones;
+    private final Consumer<Sentencia> registroLentas;
+
+    /**
+     * Las consultas lentas se escriben en {@code System.err}.
+     */
+    public InstrumentacionPersistencia(Duration umbralLento, int umbralRepeticiones) {
+        this(umbralLento, umbralRepeticiones, sentencia -> System.err.println("Consulta lenta: " + sentencia));
+    }
+
+    /**
+     * @param umbralLento        las sentencias que tardan al menos esto se pasan a {@code registroLentas},
+     *                           estén o no dentro de una unidad de trabajo
+     * @param umbralRepeticiones veces que tiene que repetirse el mismo SQL en una unidad de trabajo
+     *                           para marcarlo como posible N+1
+     */
+    public InstrumentacionPersistencia(Duration umbralLento, int umbralRepeticiones, Consumer<Sentencia> registroLentas) {
+        this.umbralLento = Objects.requireNonNull(umbralLento, "El umbral de consultas lentas no puede ser nulo");
+        if (umbralRepeticiones < 2) {
+            throw new IllegalArgumentException("El umbral de repeticiones debe ser al menos 2");
+        }
+        this.umbralRepeticiones = umbralRepeticiones;
+        this.registroLentas = Objects.requireNonNull(registroLentas, "El registro de consultas lentas no puede ser nulo");
+    }
+
+    /**
+     * Propiedades para {@code Persistence.createEntityManagerFactory}. Cada llamada arma un proveedor
+     * de conexiones nuevo, así que se necesita una por factory.
+     */
+    public Map<String, Object> propiedades() {
+        Map<String, Object> propiedades = new HashMap<>();
+        propiedades.put("hibernate.connection.provider_class", new ConexionesInstrumentadas(this));
+        propiedades.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(new ContadorCargas(this)));
+        return propiedades;
+    }
+
+    public Reporte medir(String nombre, Runnable trabajo) {
+        return medir(nombre, () -> {
+            trabajo.run();
+            return null;
+        }, (resultado, reporte) -> reporte);
+    }
+
+    /**
+     * Corre {@code trabajo} y lanza {@link IllegalStateException} con el detalle si ejecutó más de
+     * {@code maxSentencias} sentencias. Pensado para fijar en un chequeo cuántas consultas hace un servicio.
+     */
+    public <T> T verificarMaximo(String nombre, int maxSentencias, Supplier<T> trabajo) {
+        return medir(nombre, trabajo, (resultado, reporte) -> {
+            if (reporte.cantidadSentencias() > maxSentencias) {
+                throw new IllegalStateException("Se esperaban como máximo " + maxSentencias + " sentencias y hubo "
+                        + reporte.cantidadSentencias() + " en " + reporte);
+            }
+            return resultado;
+        });
+    }
+
+    private <T, R> R medir(String nombre, Supplier<T> trabajo, BiFunction<T, Reporte, R> alTerminar) {
+        Objects.requireNonNull(nombre, "El nombre de la unidad de trabajo no puede ser nulo");
+        if (actual.get() != null) {
+            throw new IllegalStateException("Ya hay una unidad de trabajo en curso en este hilo");
+        }
+        Registro registro = new Registro();
+        actual.set(registro);
+        long inicio = System.nanoTime();
+        T resultado;
+        try {
+            resultado = trabajo.get();
+        } finally {
+            actual.remove();
+        }
+        Duration duracion = Duration.ofNanos(System.nanoTime() - inicio);
+        return alTerminar.apply(resultado, new Reporte(nombre, List.copyOf(registro.sentencias),
+                Collections.unmodifiableMap(registro.cargas), repetidas(registro.sentencias), duracion));
+    }
+
+    private Map<String, Integer> repetidas(List<Sentencia> sentencias) {
+        Map<String, Integer> veces = new LinkedHashMap<>();
+        for (Sentencia sentencia : sentencias) {
+            veces.merge(sentencia.sql(), 1, Integer::sum);
+        }
+        veces.values().removeIf(v -> v < umbralRepeticiones);
+        return Collections.unmodifiableMap(veces);
+    }
+
+    private void registrar(Sentencia sentencia) {
+        Registro registro = actual.get();
+        if (registro != null) {
+            registro.sentencias.add(sentencia);
+        }
+        if (sentencia.duracion().compareTo(umbralLento) >= 0) {
+            registroLentas.accept(sentencia);
+        }
+    }
+
+    private void registrarCarga(String entidad) {
+        Registro registro = actual.get();
+        if (registro != null) {
+            registro.cargas.merge(entidad.substring(entidad.lastIndexOf('.') + 1), 1L, Long::sum);
+        }
+    }
+
+    // Proveedor de conexiones por defecto de Hibernate, con las conexiones envueltas en un proxy
+    private static final class ConexionesInstrumentadas extends DriverManagerConnectionProviderImpl {
+        private final InstrumentacionPersistencia instrumentacion;
+
+        ConexionesInstrumentadas(InstrumentacionPersistencia instrumentacion) {
+            this.instrumentacion = instrumentacion;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection conexion = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ConexionInstrumentada(conexion, instrumentacion));
+        }
+
+        @Override
+        public void closeConnection(Connection conexion) throws SQLException {
+            if (Proxy.isProxyClass(conexion.getClass())
+                    && Proxy.getInvocationHandler(conexion) instanceof ConexionInstrumentada envuelta) {
+                conexion = envuelta.conexion;
+            }
+            super.closeConnection(conexion);
+        }
+    }
+
+    private record ConexionInstrumentada(Connection conexion, InstrumentacionPersistencia instrumentacion)
+            implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            Object resultado = invocar(conexion, metodo, args);
+            String nombre = metodo.getName();
+            if (resultado instanceof Statement sentencia
+                    && (nombre.equals("prepareStatement") || nombre.equals("prepareCall") || nombre.equals("createStatement"))) {
+                Class<?> tipo = sentencia instanceof CallableStatement ? CallableStatement.class
+                        : sentencia instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                String sql = args != null && args.length > 0 && args[0] instanceof String texto ? texto : null;
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{tipo},
+                        new SentenciaInstrumentada(sentencia, sql, instrumentacion));
+            }
+            return resultado;
+        }
+    }
+
+    private static final class SentenciaInstrumentada implements InvocationHandler {
+        private final Statement sentencia;
+        private final String sql;
+        private final InstrumentacionPersistencia instrumentacion;
+        private final TreeMap<Integer, Object> parametros = new TreeMap<>();
+        private List<Object> primeraFila;
+        private int lote;
+
+        SentenciaInstrumentada(Statement sentencia, String sql, InstrumentacionPersistencia instrumentacion) {
+            this.sentencia = sentencia;
+            this.sql = sql;
+            this.instrumentacion = instrumentacion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                parametros.put(indice, nombre.equals("setNull") ? null : args[1]);
+            } else if (nombre.equals("clearParameters")) {
+                parametros.clear();
+            } else if (nombre.equals("addBatch") && (args == null || args.length == 0)) {
+                if (lote++ == 0) {
+                    primeraFila = new ArrayList<>(parametros.values());
+                }
+            } else if (nombre.startsWith("execute")) {
+                return ejecutar(metodo, args, nombre.equals("executeBatch") || nombre.equals("executeLargeBatch"));
+            }
+            return invocar(sentencia, metodo, args);
+        }
+
+        private Object ejecutar(Method metodo, Object[] args, boolean batch) throws Throwable {
+            long inicio = System.nanoTime();
+            try {
+                return invocar(sentencia, metodo, args);
+            } finally {
+                Duration duracion = Duration.ofNanos(System.nanoTime() - inicio);
+                String texto = args != null && args.length > 0 && args[0] instanceof String directo ? directo : sql;
+                List<Object> valores = batch && primeraFila != null ? primeraFila : new ArrayList<>(parametros.values());
+                instrumentacion.registrar(new Sentencia(texto, Collections.unmodifiableList(valores),
+                        batch ? lote : 1, duracion));
+                if (batch) {
+                    lote = 0;
+                    primeraFila = null;
+                }
+            }
+        }
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record ContadorCargas(InstrumentacionPersistencia instrumentacion) implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                              SessionFactoryImplementor sessionFactory) {
+            PostLoadEventListener listener = evento ->
+                    instrumentacion.registrarCarga(evento.getPersister().getEntityName());
+            sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class)
+                    .appendListeners(EventType.POST_LOAD, listener);
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
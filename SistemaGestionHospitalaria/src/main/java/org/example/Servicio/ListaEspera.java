@@ -0,0 +1,283 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+import org.example.entidades.EspecialidadMedica;
+import org.example.entidades.EstadoCita;
+import org.example.entidades.Hospital;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.Sala;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lista de espera con reasignación automática de turnos liberados. Cada solicitud espera un día con
+ * un médico, una sala o cualquier médico de una especialidad en un hospital, en un heap por (médico, día),
+ * (sala, día) u (hospital y especialidad, día) ordenado por prioridad y después por orden de llegada.
+ *
+ * <p>Cuando una cita futura se cancela o se marca como no asistida, el turno se ofrece a la mejor de
+ * las tres cabezas de heap que corresponden a su médico, su sala y la especialidad del médico en el hospital
+ * de la sala: cualquiera de ellas puede usar ese médico y esa sala, así que elegir y sacar es O(log n).
+ * La reasignación corre en un hilo aparte para no demorar la cancelación. Si la elegida no puede tomar
+ * el turno (por ejemplo porque la programación falla para ese paciente) se ofrece a la siguiente cabeza,
+ * hasta que alguna lo tome o no quede nadie; las que no lo tomaron vuelven a esperar con su lugar en la fila.</p>
+ */
+public class ListaEspera implements CitaObservador, AutoCloseable {
+
+    /**
+     * Una solicitud en espera. {@link #getCita()} se completa cuando se le asigna un turno.
+     */
+    public static final class Solicitud {
+        private final long orden;
+        private final Paciente paciente;
+        private final Object destino;
+        private final LocalDate dia;
+        private final BigDecimal costo;
+        private final PrioridadEspera prioridad;
+        private final CompletableFuture<Cita> cita = new CompletableFuture<>();
+
+        private Solicitud(long orden, Paciente paciente, Object destino, LocalDate dia, BigDecimal costo,
+                          PrioridadEspera prioridad) {
+            this.orden = orden;
+            this.paciente = Objects.requireNonNull(paciente, "El paciente no puede ser nulo");
+            this.destino = destino;
+            this.dia = Objects.requireNonNull(dia, "El día no puede ser nulo");
+            this.costo = Objects.requireNonNull(costo, "El costo no puede ser nulo");
+            this.prioridad = Objects.requireNonNull(prioridad, "La prioridad no puede ser nula");
+        }
+
+        public Paciente getPaciente() {
+            return paciente;
+        }
+
+        public LocalDate getDia() {
+            return dia;
+        }
+
+        public PrioridadEspera getPrioridad() {
+            return prioridad;
+        }
+
+        public CompletableFuture<Cita> getCita() {
+            return cita;
+        }
+
+        public boolean isPendiente() {
+            return !cita.isDone();
+        }
+    }
+
+    private static final Comparator<Solicitud> ORDEN = Comparator
+            .comparing(Solicitud::getPrioridad)
+            .thenComparingLong(solicitud -> solicitud.orden);
+
+    // destino es un Medico, una Sala o una PorEspecialidad
+    private record Clave(Object destino, LocalDate dia) {
+    }
+
+    // Un pedido por especialidad solo puede tomar turnos de ese hospital
+    private record PorEspecialidad(Hospital hospital, EspecialidadMedica especialidad) {
+    }
+
+    private final CitaManager citaManager;
+    private final Map<Clave, PriorityQueue<Solicitud>> esperas = new HashMap<>();
+    private final ExecutorService reasignador;
+    private final AtomicLong orden = new AtomicLong();
+    private final AtomicLong asignadas = new AtomicLong();
+    private int pendientes;
+
+    public ListaEspera(CitaManager citaManager) {
+        this.citaManager = Objects.requireNonNull(citaManager, "El CitaManager no puede ser nulo");
+        this.reasignador = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "lista-espera-reasignacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        citaManager.agregarObservador(this);
+    }
+
+    /**
+     * Intenta programar la cita; si el médico o la sala están ocupados, deja al paciente esperando
+     * un turno con ese médico ese día en lugar de perder el pedido. Otros errores se propagan.
+     */
+    public Solicitud programarOEsperar(Paciente paciente, Medico medico, Sala sala, LocalDateTime fechaHora,
+                                       BigDecimal costo, PrioridadEspera prioridad) throws CitaException {
+        synchronized (citaManager) {
+            if (citaManager.esMedicoDisponible(medico, fechaHora) && citaManager.esSalaDisponible(sala, fechaHora)) {
+                Solicitud solicitud = new Solicitud(orden.incrementAndGet(), paciente, medico,
+                        fechaHora.toLocalDate(), costo, prioridad);
+                solicitud.cita.complete(citaManager.programarCita(paciente, medico, sala, fechaHora, costo));
+                return solicitud;
+            }
+        }
+        return esperarMedico(paciente, medico, fechaHora.toLocalDate(), costo, prioridad);
+    }
+
+    public Solicitud esperarMedico(Paciente paciente, Medico medico, LocalDate dia, BigDecimal costo,
+                                   PrioridadEspera prioridad) {
+        return encolar(paciente, Objects.requireNonNull(medico, "El médico no puede ser nulo"), dia, costo, prioridad);
+    }
+
+    public Solicitud esperarSala(Paciente paciente, Sala sala, LocalDate dia, BigDecimal costo,
+                                 PrioridadEspera prioridad) {
+        return encolar(paciente, Objects.requireNonNull(sala, "La sala no puede ser nula"), dia, costo, prioridad);
+    }
+
+    /**
+     * Espera un turno con cualquier médico de la especialidad en las salas del hospital dado.
+     */
+    public Solicitud esperarEspecialidad(Paciente paciente, Hospital hospital, EspecialidadMedica especialidad,
+                                         LocalDate dia, BigDecimal costo, PrioridadEspera prioridad) {
+        return encolar(paciente, new PorEspecialidad(Objects.requireNonNull(hospital, "El hospital no puede ser nulo"),
+                Objects.requireNonNull(especialidad, "La especialidad no puede ser nula")), dia, costo, prioridad);
+    }
+
+    /**
+     * Saca la solicitud de la lista. Devuelve false si ya tenía turno asignado o ya se había retirado.
+     * Es O(n) en las solicitudes que esperan el mismo destino el mismo día: retirar es poco frecuente y
+     * esos heaps son chicos, así que no se mantiene un índice de posiciones para borrar en O(log n).
+     */
+    public boolean retirar(Solicitud solicitud) {
+        synchronized (esperas) {
+            PriorityQueue<Solicitud> heap = esperas.get(new Clave(solicitud.destino, solicitud.dia));
+            if (heap == null || !heap.remove(solicitud)) {
+                return false;
+            }
+            if (heap.isEmpty()) {
+                esperas.remove(new Clave(solicitud.destino, solicitud.dia));
+            }
+            pendientes--;
+        }
+        solicitud.cita.cancel(false);
+        return true;
+    }
+
+    @Override
+    public void alCambiarEstado(Cita cita, EstadoCita anterior) {
+        boolean liberado = cita.getEstado() == EstadoCita.CANCELADA || cita.getEstado() == EstadoCita.NO_ASISTIO;
+        if (liberado && (anterior == EstadoCita.PROGRAMADA || anterior == EstadoCita.EN_CURSO)
+                && cita.getFechaHora().isAfter(LocalDateTime.now())) {
+            // Se llama dentro del bloqueo del CitaManager: solo se encola, el trabajo va en el otro hilo
+            try {
+                reasignador.execute(() -> reasignar(cita.getMedico(), cita.getSala(), cita.getFechaHora()));
+            } catch (RejectedExecutionException e) {
+                // Una cancelación que ya estaba en curso cuando se cerró la lista: el turno no se reasigna
+            }
+        }
+    }
+
+    private Solicitud encolar(Paciente paciente, Object destino, LocalDate dia, BigDecimal costo,
+                              PrioridadEspera prioridad) {
+        Solicitud solicitud = new Solicitud(orden.incrementAndGet(), paciente, destino, dia, costo, prioridad);
+        synchronized (esperas) {
+            esperas.computeIfAbsent(new Clave(destino, dia), clave -> new PriorityQueue<>(ORDEN)).add(solicitud);
+            pendientes++;
+        }
+        return solicitud;
+    }
+
+    private void reasignar(Medico medico, Sala sala, LocalDateTime fechaHora) {
+        LocalDate dia = fechaHora.toLocalDate();
+        Hospital hospital = sala.getDepartamento().getHospital();
+        Clave[] claves = {new Clave(medico, dia), new Clave(sala, dia),
+                new Clave(new PorEspecialidad(hospital, medico.getEspecialidad()), dia)};
+        // Las que no pudieron usar el turno vuelven a la fila al final, así no se las vuelve a elegir
+        List<Solicitud> rechazadas = new ArrayList<>();
+        try {
+            Solicitud elegida;
+            while ((elegida = tomarMejor(claves)) != null) {
+                synchronized (citaManager) {
+                    if (fechaHora.isBefore(LocalDateTime.now())
+                            || !citaManager.esMedicoDisponible(medico, fechaHora)
+                            || !citaManager.esSalaDisponible(sala, fechaHora)) {
+                        // El turno se ocupó (o pasó) antes de llegar: no hay nada que ofrecer al resto
+                        rechazadas.add(elegida);
+                        return;
+                    }
+                    try {
+                        Cita cita = citaManager.programarCita(elegida.paciente, medico, sala, fechaHora, elegida.costo);
+                        asignadas.incrementAndGet();
+                        elegida.cita.complete(cita);
+                        return;
+                    } catch (CitaException | RuntimeException e) {
+                        // No le sirve a esta solicitud: se ofrece a la siguiente cabeza
+                        rechazadas.add(elegida);
+                    }
+                }
+            }
+        } finally {
+            devolver(rechazadas);
+        }
+    }
+
+    // Las solicitudes conservan su orden de llegada, así que recuperan su lugar en la fila
+    private void devolver(List<Solicitud> solicitudes) {
+        if (solicitudes.isEmpty()) {
+            return;
+        }
+        synchronized (esperas) {
+            for (Solicitud solicitud : solicitudes) {
+                esperas.computeIfAbsent(new Clave(solicitud.destino, solicitud.dia), clave -> new PriorityQueue<>(ORDEN))
+                        .add(solicitud);
+                pendientes++;
+            }
+        }
+    }
+
+    private Solicitud tomarMejor(Clave... claves) {
+        synchronized (esperas) {
+            Clave mejor = null;
+            for (Clave clave : claves) {
+                PriorityQueue<Solicitud> heap = esperas.get(clave);
+                if (heap != null && (mejor == null || ORDEN.compare(heap.peek(), esperas.get(mejor).peek()) < 0)) {
+                    mejor = clave;
+                }
+            }
+            if (mejor == null) {
+                return null;
+            }
+            PriorityQueue<Solicitud> heap = esperas.get(mejor);
+            Solicitud elegida = heap.poll();
+            if (heap.isEmpty()) {
+                esperas.remove(mejor);
+            }
+            pendientes--;
+            return elegida;
+        }
+    }
+
+    public int getPendientes() {
+        synchronized (esperas) {
+            return pendientes;
+        }
+    }
+
+    public long getAsignadas() {
+        return asignadas.get();
+    }
+
+    /**
+     * Deja de escuchar al manager y espera a que terminen las reasignaciones en curso.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        citaManager.quitarObservador(this);
+        reasignador.shutdown();
+        reasignador.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,193 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import org.example.entidades.EspecialidadMedica;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Consultas de solo lectura para listados y reportes. Cada consulta proyecta directamente
+ * a un record con expresiones constructoras, así que no se cargan entidades, no se inicializan
+ * asociaciones perezosas y no quedan objetos en el contexto de persistencia para el dirty checking.
+ *
+ * <p>Las agendas también leen {@code cita_archivo} cuando el rango empieza antes de la cita archivada
+ * más nueva; las consultas del día a día no lo tocan.</p>
+ */
+public class ListadoService {
+
+    private static final String SELECT_PACIENTE =
+            "SELECT new org.example.Servicio.PacienteResumen("
+                    + "p.id, p.dni, p.nombre, p.apellido, p.fechaNacimiento, p.tipoSangre, p.telefono) "
+                    + "FROM Paciente p ";
+
+    private static final String SELECT_MEDICO =
+            "SELECT new org.example.Servicio.MedicoResumen("
+                    + "m.idMedico, m.dni, m.nombre, m.apellido, m.matricula.numero, m.especialidad, d.nombre) "
+                    + "FROM Medico m LEFT JOIN m.departamento d ";
+
+    private static final String SELECT_AGENDA =
+            "SELECT new org.example.Servicio.AgendaItem("
+                    + "c.idCita, c.fechaHora, CONCAT(p.nombre, ' ', p.apellido), s.numero, c.estado) "
+                    + "FROM Cita c JOIN c.paciente p JOIN c.sala s ";
+
+    private static final String SELECT_AGENDA_ARCHIVO =
+            "SELECT new org.example.Servicio.AgendaItem("
+                    + "a.idCita, a.fechaHora, CONCAT(p.nombre, ' ', p.apellido), s.numero, a.estado) "
+                    + "FROM CitaArchivada a JOIN a.paciente p JOIN a.sala s ";
+
+    private final EntityManager em;
+    private final ArchivoCitas archivo;
+
+    public ListadoService(EntityManager em) {
+        this(em, null);
+    }
+
+    public ListadoService(EntityManager em, ArchivoCitas archivo) {
+        this.em = em;
+        this.archivo = archivo;
+    }
+
+    /**
+     * Página de pacientes de un hospital ordenada por apellido y nombre.
+     */
+    public List<PacienteResumen> listarPacientes(Long idHospital, int pagina, int tamanoPagina) {
+        validarPagina(pagina, tamanoPagina);
+        return em.createQuery(SELECT_PACIENTE
+                                + "WHERE p.hospital.idHospital = :hospital "
+                                + "ORDER BY p.apellido, p.nombre, p.id",
+                        PacienteResumen.class)
+                .setParameter("hospital", idHospital)
+                .setFirstResult(pagina * tamanoPagina)
+                .setMaxResults(tamanoPagina)
+                .getResultList();
+    }
+
+    public List<PacienteResumen> buscarPacientesPorDni(List<String> dnis) {
+        if (dnis.isEmpty()) {
+            return List.of();
+        }
+        return em.createQuery(SELECT_PACIENTE + "WHERE p.dni IN :dnis", PacienteResumen.class)
+                .setParameter("dnis", dnis)
+                .getResultList();
+    }
+
+    /**
+     * Pacientes con un diagnóstico del catálogo, ordenados por apellido y nombre. Se busca por el id
+     * entero de la entrada, con el índice de {@code diagnosticos}.
+     */
+    public List<PacienteResumen> listarPacientesConDiagnostico(Integer idDiagnostico) {
+        return em.createQuery("SELECT DISTINCT new org.example.Servicio.PacienteResumen("
+                                + "p.id, p.dni, p.nombre, p.apellido, p.fechaNacimiento, p.tipoSangre, p.telefono) "
+                                + "FROM HistoriaClinica h JOIN h.paciente p JOIN h.diagnosticos d "
+                                + "WHERE d.entrada.id = :diagnostico "
+                                + "ORDER BY p.apellido, p.nombre, p.id",
+                        PacienteResumen.class)
+                .setParameter("diagnostico", idDiagnostico)
+                .getResultList();
+    }
+
+    /**
+     * Plantel médico de un hospital, agrupado por especialidad.
+     */
+    public List<MedicoResumen> listarMedicos(Long idHospital) {
+        return em.createQuery(SELECT_MEDICO
+                                + "WHERE d.hospital.idHospital = :hospital "
+                                + "ORDER BY m.especialidad, m.apellido, m.nombre",
+                        MedicoResumen.class)
+                .setParameter("hospital", idHospital)
+                .getResultList();
+    }
+
+    public List<MedicoResumen> listarMedicosPorEspecialidad(EspecialidadMedica especialidad) {
+        return em.createQuery(SELECT_MEDICO
+                                + "WHERE m.especialidad = :esp "
+                                + "ORDER BY m.apellido, m.nombre",
+                        MedicoResumen.class)
+                .setParameter("esp", especialidad)
+                .getResultList();
+    }
+
+    /**
+     * Agenda de un médico para un día.
+     */
+    public List<AgendaItem> agendaMedico(Long idMedico, LocalDate dia) {
+        return agendaMedico(idMedico, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Agenda de un médico en [desde, hasta), ordenada por horario.
+     */
+    public List<AgendaItem> agendaMedico(Long idMedico, LocalDateTime desde, LocalDateTime hasta) {
+        List<AgendaItem> activas = em.createQuery(SELECT_AGENDA
+                                + "WHERE c.medico.idMedico = :medico "
+                                + "AND c.fechaHora >= :desde AND c.fechaHora < :hasta "
+                                + "ORDER BY c.fechaHora",
+                        AgendaItem.class)
+                .setParameter("medico", idMedico)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .getResultList();
+        if (!alcanzaArchivo(desde)) {
+            return activas;
+        }
+        return unir(activas, em.createQuery(SELECT_AGENDA_ARCHIVO
+                                + "WHERE a.medico.idMedico = :medico "
+                                + "AND a.fechaHora >= :desde AND a.fechaHora < :hasta",
+                        AgendaItem.class)
+                .setParameter("medico", idMedico)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .getResultList());
+    }
+
+    /**
+     * Ocupación de una sala en [desde, hasta), ordenada por horario.
+     */
+    public List<AgendaItem> agendaSala(Long idSala, LocalDateTime desde, LocalDateTime hasta) {
+        List<AgendaItem> activas = em.createQuery(SELECT_AGENDA
+                                + "WHERE s.idSala = :sala "
+                                + "AND c.fechaHora >= :desde AND c.fechaHora < :hasta "
+                                + "ORDER BY c.fechaHora",
+                        AgendaItem.class)
+                .setParameter("sala", idSala)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .getResultList();
+        if (!alcanzaArchivo(desde)) {
+            return activas;
+        }
+        return unir(activas, em.createQuery(SELECT_AGENDA_ARCHIVO
+                                + "WHERE s.idSala = :sala "
+                                + "AND a.fechaHora >= :desde AND a.fechaHora < :hasta",
+                        AgendaItem.class)
+                .setParameter("sala", idSala)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .getResultList());
+    }
+
+    private boolean alcanzaArchivo(LocalDateTime desde) {
+        return archivo != null ? archivo.alcanza(desde) : ArchivoCitas.alcanza(em, desde);
+    }
+
+    private static List<AgendaItem> unir(List<AgendaItem> activas, List<AgendaItem> archivadas) {
+        if (archivadas.isEmpty()) {
+            return activas;
+        }
+        List<AgendaItem> agenda = new ArrayList<>(activas.size() + archivadas.size());
+        agenda.addAll(archivadas);
+        agenda.addAll(activas);
+        agenda.sort(Comparator.comparing(AgendaItem::fechaHora));
+        return agenda;
+    }
+
+    private void validarPagina(int pagina, int tamanoPagina) {
+        if (pagina < 0 || tamanoPagina <= 0) {
+            throw new IllegalArgumentException("Página o tamaño de página inválido");
+        }
+    }
+}
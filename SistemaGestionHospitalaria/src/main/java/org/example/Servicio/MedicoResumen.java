@@ -0,0 +1,19 @@
+package org.example.Servicio;
+
+import org.example.entidades.EspecialidadMedica;
+
+/**
+ * Fila del plantel médico; el departamento se trae por nombre para no cargar la entidad.
+ */
+public record MedicoResumen(Long id,
+                            String dni,
+                            String nombre,
+                            String apellido,
+                            String matricula,
+                            EspecialidadMedica especialidad,
+                            String departamento) {
+
+    public String getNombreCompleto() {
+        return nombre + " " + apellido;
+    }
+}
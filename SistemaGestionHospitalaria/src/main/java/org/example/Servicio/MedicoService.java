@@ -1,13 +1,17 @@
 package org.example.Servicio;
 
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.TypedQuery;
 import org.example.entidades.EspecialidadMedica;
 
-import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Estadísticas del plantel médico. Para reportes pesados conviene construirlo con un EntityManager
+ * de {@link PersistenciaReportes} y no con el de las reservas.
+ */
 public class MedicoService {
 
     private final EntityManager em;
@@ -17,21 +21,15 @@ public class MedicoService {
     }
 
     /**
-     * Retorna un mapa con la cantidad de médicos por especialidad.
+     * Retorna un mapa con la cantidad de médicos por especialidad, en una sola consulta agrupada.
      */
     public Map<EspecialidadMedica, Long> contarMedicosPorEspecialidad() {
         Map<EspecialidadMedica, Long> resultado = new EnumMap<>(EspecialidadMedica.class);
 
-        for (EspecialidadMedica esp : EspecialidadMedica.values()) {
-            TypedQuery<Long> query = em.createQuery(
-                    "SELECT COUNT(m) FROM Medico m WHERE m.especialidad = :esp",
-                    Long.class
-            );
-            query.setParameter("esp", esp);
-            Long count = query.getSingleResult();
-            if (count > 0) {
-                resultado.put(esp, count);
-            }
+        for (Object[] fila : em.createQuery(
+                "SELECT m.especialidad, COUNT(m) FROM Medico m GROUP BY m.especialidad", Object[].class)
+                .getResultList()) {
+            resultado.put((EspecialidadMedica) fila[0], (Long) fila[1]);
         }
 
         return resultado;
@@ -41,11 +39,8 @@ public class MedicoService {
      * Opcional: Exportar los datos a CSV
      */
     public void exportarEstadisticasCSV(Map<EspecialidadMedica, Long> datos, String archivoPath) throws Exception {
-        try (PrintWriter pw = new PrintWriter(archivoPath)) {
-            pw.println("Especialidad,Cantidad");
-            for (Map.Entry<EspecialidadMedica, Long> entry : datos.entrySet()) {
-                pw.println(entry.getKey().name() + "," + entry.getValue());
-            }
-        }
+        new ExportadorDatos(ExportadorDatos.Formato.CSV, false).exportar(Path.of(archivoPath),
+                List.of("Especialidad", "Cantidad"),
+                datos.entrySet().stream().map(entry -> new Object[]{entry.getKey(), entry.getValue()}));
     }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package org.example.Servicio;
+
+import org.example.entidades.TipoSangre;
+
+import java.time.LocalDate;
+
+/**
+ * Fila de listado de pacientes: solo las columnas que muestran las pantallas, sin entidad gestionada.
+ */
+public record PacienteResumen(Long id,
+                              String dni,
+                              String nombre,
+                              String apellido,
+                              LocalDate fechaNacimiento,
+                              TipoSangre tipoSangre,
+                              String telefono) {
+
+    public String getNombreCompleto() {
+        return nombre + " " + apellido;
+    }
+}
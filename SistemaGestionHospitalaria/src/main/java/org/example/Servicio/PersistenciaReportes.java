@@ -0,0 +1,85 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Camino de persistencia para reportes, separado del de las reservas: un EntityManagerFactory propio
+ * (con su propio pool de conexiones) que puede apuntar a una réplica de solo lectura.
+ *
+ * <ul>
+ *     <li>Las sesiones de {@link #abrir()} cargan todo como solo lectura: Hibernate no guarda la copia
+ *     de estado para el dirty checking, así que un reporte grande ocupa bastante menos memoria.</li>
+ *     <li>El flush es manual: las consultas no disparan el auto-flush ni recorren el contexto.</li>
+ *     <li>El fetch size de JDBC es más grande que el del driver, para traer los listados en menos idas.</li>
+ *     <li>No se valida ni actualiza el esquema: en una réplica no se puede y en la principal ya lo hace
+ *     el factory transaccional.</li>
+ * </ul>
+ *
+ * <p>Los servicios de consulta ({@link HospitalService}, {@link MedicoService}, {@link ListadoService},
+ * {@link ExportacionService}) se construyen con un EntityManager de acá en lugar del transaccional.
+ * Sobre una réplica los datos pueden llegar con algo de atraso; lo que tenga que leer lo recién
+ * escrito sigue usando el factory de las reservas.</p>
+ */
+public class PersistenciaReportes implements AutoCloseable {
+
+    public static final int FETCH_SIZE = 1_000;
+
+    private final EntityManagerFactory emf;
+
+    /**
+     * @param urlReplica URL JDBC de la réplica; null para leer de la misma base que la unidad
+     */
+    public PersistenciaReportes(String unidadPersistencia, Map<String, ?> propiedades, String urlReplica) {
+        Objects.requireNonNull(unidadPersistencia, "La unidad de persistencia no puede ser nula");
+        Map<String, Object> configuracion = new HashMap<>(propiedades);
+        if (urlReplica != null) {
+            configuracion.put("jakarta.persistence.jdbc.url", urlReplica);
+        }
+        configuracion.put("hibernate.hbm2ddl.auto", "none");
+        configuracion.put("hibernate.show_sql", "false");
+        configuracion.put("hibernate.jdbc.fetch_size", FETCH_SIZE);
+        configuracion.put("org.hibernate.flushMode", FlushMode.MANUAL.name());
+        this.emf = Persistence.createEntityManagerFactory(unidadPersistencia, configuracion);
+    }
+
+    /**
+     * Un EntityManager de solo lectura con flush manual. Quien lo abre lo cierra.
+     */
+    public EntityManager abrir() {
+        EntityManager em = emf.createEntityManager();
+        Session session = em.unwrap(Session.class);
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        return em;
+    }
+
+    /**
+     * Corre un reporte en su propio EntityManager y lo cierra al terminar.
+     */
+    public <T> T consultar(Function<EntityManager, T> reporte) {
+        EntityManager em = abrir();
+        try {
+            return reporte.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return emf;
+    }
+
+    @Override
+    public void close() {
+        emf.close();
+    }
+}
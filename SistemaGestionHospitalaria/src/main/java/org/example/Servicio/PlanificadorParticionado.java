@@ -0,0 +1,209 @@
+package org.example.Servicio;
+
+import org.example.entidades.*;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Planificador particionado por hospital: cada {@link Hospital} tiene su propio {@link CitaManager}
+ * (sus índices, agendas y bloqueo), así que las reservas de hospitales distintos no compiten entre sí.
+ * Las operaciones se enrutan por el hospital del departamento de la sala (o del médico); las consultas
+ * que cruzan hospitales se reparten en paralelo entre los shards y se combinan.
+ */
+public class PlanificadorParticionado implements CitaService, AutoCloseable {
+
+    private final Map<Hospital, CitaManager> shards = new ConcurrentHashMap<>();
+    // Salas y médicos sin hospital asignado
+    private final CitaManager sinHospital = new CitaManager();
+    private final List<CitaObservador> observadores = new CopyOnWriteArrayList<>();
+    private final ExecutorService pool;
+
+    public PlanificadorParticionado(int hilosConsulta) {
+        if (hilosConsulta <= 0) {
+            throw new IllegalArgumentException("La cantidad de hilos debe ser mayor que cero");
+        }
+        this.pool = Executors.newFixedThreadPool(hilosConsulta, r -> {
+            Thread hilo = new Thread(r, "planificador-consulta");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Shard del hospital; se crea la primera vez que se lo pide.
+     */
+    public CitaManager getShard(Hospital hospital) {
+        if (hospital == null) {
+            return sinHospital;
+        }
+        return shards.computeIfAbsent(hospital, h -> {
+            CitaManager shard = new CitaManager();
+            observadores.forEach(shard::agregarObservador);
+            return shard;
+        });
+    }
+
+    /**
+     * Registra el observador en todos los shards, incluidos los que se creen después.
+     */
+    public synchronized void agregarObservador(CitaObservador observador) {
+        observadores.add(observador);
+        sinHospital.agregarObservador(observador);
+        shards.values().forEach(shard -> shard.agregarObservador(observador));
+    }
+
+    private CitaManager shardDe(Sala sala) {
+        return getShard(sala.getDepartamento().getHospital());
+    }
+
+    private CitaManager shardDe(Cita cita) {
+        return shardDe(cita.getSala());
+    }
+
+    @Override
+    public Cita programarCita(Paciente paciente, Medico medico, Sala sala,
+                              LocalDateTime fechaHora, BigDecimal costo) throws CitaException {
+        Departamento departamentoMedico = medico.getDepartamento();
+        if (departamentoMedico != null
+                && !Objects.equals(departamentoMedico.getHospital(), sala.getDepartamento().getHospital())) {
+            throw new CitaException("El médico y la sala pertenecen a hospitales distintos.");
+        }
+        return shardDe(sala).programarCita(paciente, medico, sala, fechaHora, costo);
+    }
+
+    public ResultadoSerie programarSerie(Paciente paciente, Medico medico, Sala sala, ReglaRecurrencia regla,
+                                         BigDecimal costo, PoliticaConflicto politica, boolean todoONada)
+            throws CitaException {
+        return shardDe(sala).programarSerie(paciente, medico, sala, regla, costo, politica, todoONada);
+    }
+
+    @Override
+    public void avanzarCita(Cita cita) {
+        shardDe(cita).avanzarCita(cita);
+    }
+
+    @Override
+    public void cancelarCita(Cita cita) {
+        shardDe(cita).cancelarCita(cita);
+    }
+
+    @Override
+    public void marcarNoAsistio(Cita cita) {
+        shardDe(cita).marcarNoAsistio(cita);
+    }
+
+    /**
+     * Citas del paciente en toda la red, ordenadas por horario.
+     */
+    @Override
+    public List<Cita> getCitasPorPaciente(Paciente paciente) {
+        return combinar(abanico(shard -> shard.copiarCitasPorPaciente(paciente)));
+    }
+
+    @Override
+    public List<Cita> getCitasPorMedico(Medico medico) {
+        if (medico.getDepartamento() != null) {
+            return getShard(medico.getDepartamento().getHospital()).getCitasPorMedico(medico);
+        }
+        return combinar(abanico(shard -> shard.copiarCitasPorMedico(medico)));
+    }
+
+    @Override
+    public List<Cita> getCitasPorSala(Sala sala) {
+        return shardDe(sala).getCitasPorSala(sala);
+    }
+
+    public int cantidadCitas() {
+        int total = 0;
+        for (int cantidad : abanico(CitaManager::cantidadCitas)) {
+            total += cantidad;
+        }
+        return total;
+    }
+
+    public Map<EstadoCita, Long> contarPorEstado() {
+        Map<EstadoCita, Long> total = new EnumMap<>(EstadoCita.class);
+        for (Map<EstadoCita, Long> parcial : abanico(CitaManager::contarPorEstado)) {
+            parcial.forEach((estado, cantidad) -> total.merge(estado, cantidad, Long::sum));
+        }
+        return total;
+    }
+
+    @Override
+    public void guardarCitas(String filename) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            for (CitaManager shard : todosLosShards()) {
+                shard.escribirCitas(writer);
+            }
+        }
+    }
+
+    @Override
+    public void cargarCitas(String filename, Map<String, Paciente> pacientes,
+                            Map<String, Medico> medicos, Map<String, Sala> salas)
+            throws IOException, CitaException {
+        for (CitaManager shard : todosLosShards()) {
+            shard.limpiar();
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Cita cita = Cita.fromCsvString(line, pacientes, medicos, salas);
+                shardDe(cita).incorporar(cita);
+            }
+        }
+    }
+
+    private List<CitaManager> todosLosShards() {
+        List<CitaManager> todos = new ArrayList<>(shards.values());
+        todos.add(sinHospital);
+        return todos;
+    }
+
+    // Ejecuta la consulta en todos los shards en paralelo y junta los resultados
+    private <T> List<T> abanico(Function<CitaManager, T> consulta) {
+        List<CompletableFuture<T>> parciales = new ArrayList<>();
+        for (CitaManager shard : todosLosShards()) {
+            parciales.add(CompletableFuture.supplyAsync(() -> consulta.apply(shard), pool));
+        }
+        List<T> resultados = new ArrayList<>(parciales.size());
+        for (CompletableFuture<T> parcial : parciales) {
+            resultados.add(parcial.join());
+        }
+        return resultados;
+    }
+
+    // Las listas son copias propias de cada tarea, ya ordenadas por horario
+    private List<Cita> combinar(List<List<Cita>> listas) {
+        List<Cita> todas = new ArrayList<>();
+        for (List<Cita> lista : listas) {
+            todas.addAll(lista);
+        }
+        todas.sort(Comparator.comparing(Cita::getFechaHora));
+        return Collections.unmodifiableList(todas);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.Servicio;
+
+/**
+ * Qué hacer con una ocurrencia de una serie cuyo turno está ocupado.
+ */
+public enum PoliticaConflicto {
+    /** Se omite la ocurrencia. */
+    OMITIR,
+    /** Se corre al primer turno libre posterior del mismo día; si no hay, se omite. */
+    CORRER
+}
@@ -0,0 +1,10 @@
+package org.example.Servicio;
+
+/**
+ * Prioridad de una solicitud en la lista de espera; el orden de declaración es el de atención.
+ */
+public enum PrioridadEspera {
+    URGENTE,
+    ALTA,
+    NORMAL
+}
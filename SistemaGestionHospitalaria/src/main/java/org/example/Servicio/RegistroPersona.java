@@ -0,0 +1,35 @@
+package org.example.Servicio;
+
+/**
+ * Registro crudo de un padrón de médicos o pacientes, tal como llega de la sincronización.
+ * Los campos que no aplican al tipo de registro pueden venir nulos
+ * (matrícula y especialidad solo para médicos; teléfono y dirección solo para pacientes).
+ */
+public record RegistroPersona(Tipo tipo,
+                              String nombre,
+                              String apellido,
+                              String dni,
+                              String fechaNacimiento,
+                              String tipoSangre,
+                              String telefono,
+                              String direccion,
+                              String matricula,
+                              String especialidad) {
+
+    public enum Tipo {
+        MEDICO,
+        PACIENTE
+    }
+
+    public static RegistroPersona medico(String nombre, String apellido, String dni, String fechaNacimiento,
+                                         String tipoSangre, String matricula, String especialidad) {
+        return new RegistroPersona(Tipo.MEDICO, nombre, apellido, dni, fechaNacimiento, tipoSangre,
+                null, null, matricula, especialidad);
+    }
+
+    public static RegistroPersona paciente(String nombre, String apellido, String dni, String fechaNacimiento,
+                                           String tipoSangre, String telefono, String direccion) {
+        return new RegistroPersona(Tipo.PACIENTE, nombre, apellido, dni, fechaNacimiento, tipoSangre,
+                telefono, direccion, null, null);
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.Servicio;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Regla de una serie de citas: primera fecha, frecuencia (cada {@code intervalo} días o semanas)
+ * y un fin dado por cantidad de ocurrencias o por fecha límite inclusive (uno de los dos).
+ */
+public record ReglaRecurrencia(LocalDateTime inicio,
+                               Frecuencia frecuencia,
+                               int intervalo,
+                               int cantidad,
+                               LocalDate hasta) {
+
+    public enum Frecuencia {
+        DIARIA,
+        SEMANAL
+    }
+
+    /** Tope de ocurrencias por serie, para no expandir reglas sin fin razonable. */
+    public static final int MAX_OCURRENCIAS = 1_000;
+
+    public ReglaRecurrencia {
+        Objects.requireNonNull(inicio, "La fecha de inicio no puede ser nula");
+        Objects.requireNonNull(frecuencia, "La frecuencia no puede ser nula");
+        if (intervalo <= 0) {
+            throw new IllegalArgumentException("El intervalo debe ser mayor que cero");
+        }
+        if ((cantidad > 0) == (hasta != null)) {
+            throw new IllegalArgumentException("La serie debe terminar por cantidad o por fecha, no ambas");
+        }
+        if (cantidad > MAX_OCURRENCIAS) {
+            throw new IllegalArgumentException("Una serie no puede tener más de " + MAX_OCURRENCIAS + " ocurrencias");
+        }
+        if (hasta != null && hasta.isBefore(inicio.toLocalDate())) {
+            throw new IllegalArgumentException("La fecha límite es anterior al inicio de la serie");
+        }
+    }
+
+    public static ReglaRecurrencia semanal(LocalDateTime inicio, int cantidad) {
+        return new ReglaRecurrencia(inicio, Frecuencia.SEMANAL, 1, cantidad, null);
+    }
+
+    public static ReglaRecurrencia diaria(LocalDateTime inicio, int cantidad) {
+        return new ReglaRecurrencia(inicio, Frecuencia.DIARIA, 1, cantidad, null);
+    }
+
+    public static ReglaRecurrencia semanalHasta(LocalDateTime inicio, LocalDate hasta) {
+        return new ReglaRecurrencia(inicio, Frecuencia.SEMANAL, 1, 0, hasta);
+    }
+
+    public static ReglaRecurrencia diariaHasta(LocalDateTime inicio, LocalDate hasta) {
+        return new ReglaRecurrencia(inicio, Frecuencia.DIARIA, 1, 0, hasta);
+    }
+
+    /**
+     * Fechas de todas las ocurrencias, en orden.
+     */
+    public List<LocalDateTime> expandir() {
+        List<LocalDateTime> fechas = new ArrayList<>();
+        LocalDateTime fecha = inicio;
+        while (hasta != null ? !fecha.toLocalDate().isAfter(hasta) : fechas.size() < cantidad) {
+            if (fechas.size() == MAX_OCURRENCIAS) {
+                throw new IllegalArgumentException("Una serie no puede tener más de " + MAX_OCURRENCIAS + " ocurrencias");
+            }
+            fechas.add(fecha);
+            fecha = frecuencia == Frecuencia.DIARIA ? fecha.plusDays(intervalo) : fecha.plusWeeks(intervalo);
+        }
+        return fechas;
+    }
+}
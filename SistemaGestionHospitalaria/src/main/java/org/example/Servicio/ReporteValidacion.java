@@ -0,0 +1,65 @@
+package org.example.Servicio;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Resultado de validar un lote: todas las violaciones de cada registro, indexadas por su posición.
+ */
+public class ReporteValidacion {
+
+    private final int totalRegistros;
+    private final SortedMap<Integer, List<String>> errores;
+
+    ReporteValidacion(int totalRegistros, SortedMap<Integer, List<String>> errores) {
+        this.totalRegistros = totalRegistros;
+        this.errores = Collections.unmodifiableSortedMap(errores);
+    }
+
+    public int getTotalRegistros() {
+        return totalRegistros;
+    }
+
+    public int getRegistrosValidos() {
+        return totalRegistros - errores.size();
+    }
+
+    public int getRegistrosInvalidos() {
+        return errores.size();
+    }
+
+    public boolean esValido() {
+        return errores.isEmpty();
+    }
+
+    public boolean esValido(int indice) {
+        return !errores.containsKey(indice);
+    }
+
+    /**
+     * Violaciones por posición del registro en el lote; solo aparecen los registros inválidos.
+     */
+    public SortedMap<Integer, List<String>> getErrores() {
+        return errores;
+    }
+
+    public List<String> getErrores(int indice) {
+        return errores.getOrDefault(indice, List.of());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder()
+                .append("Registros: ").append(totalRegistros)
+                .append(", válidos: ").append(getRegistrosValidos())
+                .append(", inválidos: ").append(getRegistrosInvalidos());
+        for (Map.Entry<Integer, List<String>> entry : errores.entrySet()) {
+            sb.append(System.lineSeparator())
+                    .append("  #").append(entry.getKey()).append(": ")
+                    .append(String.join("; ", entry.getValue()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+import org.example.entidades.*;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.LockAcquisitionException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reserva y cambios de estado de citas directamente contra la base, para cuando varias instancias
+ * de la aplicación agendan sobre la misma base y el {@link CitaManager} en memoria no alcanza.
+ *
+ * <p>No se toman bloqueos pesimistas: la superposición de turnos la rechaza la restricción única
+ * por bloque de {@code cita_tabla} (ver {@link Cita}), y las modificaciones concurrentes de una
+ * misma cita las detecta su {@code @Version}. Los conflictos transitorios (versión vieja, espera
+ * de bloqueo, deadlock) se reintentan con espera exponencial acotada y jitter; un turno ocupado
+ * no se reintenta porque volvería a fallar. Como en el {@link CitaManager}, solo se aceptan
+ * inicios de turno de la grilla: una cita fuera de ella ocuparía dos bloques y chocaría con
+ * vecinas contiguas que no se superponen.</p>
+ */
+public class ReservaCitasService {
+
+    private final EntityManagerFactory emf;
+    private final int maxIntentos;
+    private final Duration esperaBase;
+    private final Duration esperaMaxima;
+
+    public ReservaCitasService(EntityManagerFactory emf) {
+        this(emf, 5, Duration.ofMillis(20), Duration.ofMillis(500));
+    }
+
+    public ReservaCitasService(EntityManagerFactory emf, int maxIntentos, Duration esperaBase, Duration esperaMaxima) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+        if (maxIntentos <= 0) {
+            throw new IllegalArgumentException("La cantidad de intentos debe ser mayor que cero");
+        }
+        if (esperaBase.isNegative() || esperaMaxima.compareTo(esperaBase) < 0) {
+            throw new IllegalArgumentException("Las esperas entre intentos son inválidas");
+        }
+        this.maxIntentos = maxIntentos;
+        this.esperaBase = esperaBase;
+        this.esperaMaxima = esperaMaxima;
+    }
+
+    /**
+     * Programa una cita y la persiste. Devuelve la cita ya confirmada (desasociada del EntityManager).
+     */
+    public Cita reservar(Long idPaciente, Long idMedico, Long idSala,
+                         LocalDateTime fechaHora, BigDecimal costo) throws CitaException {
+        if (fechaHora.isBefore(LocalDateTime.now())) {
+            throw new CitaException("No se puede programar una cita en el pasado.");
+        }
+        if (!CitaManager.esInicioDeTurno(fechaHora)) {
+            throw new CitaException("La cita debe empezar al inicio de un turno (cada "
+                    + CitaManager.DURACION_CITA.toHours() + " horas desde las 00:00).");
+        }
+        if (costo.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new CitaException("El costo debe ser mayor que cero.");
+        }
+        if (costo.stripTrailingZeros().scale() > 2) {
+            throw new CitaException("El costo no puede tener fracciones de centavo.");
+        }
+        return conReintentos(em -> {
+            Paciente paciente = buscar(em, Paciente.class, idPaciente, "Paciente");
+            Medico medico = buscar(em, Medico.class, idMedico, "Médico");
+            Sala sala = buscar(em, Sala.class, idSala, "Sala");
+            if (!medico.getEspecialidad().equals(sala.getDepartamento().getEspecialidad())) {
+                throw new CitaException("La especialidad del médico no coincide con el departamento de la sala.");
+            }
+            Cita cita = Cita.builder()
+                    .paciente(paciente)
+                    .medico(medico)
+                    .sala(sala)
+                    .fechaHora(fechaHora)
+                    .costo(costo)
+                    .build();
+            em.persist(cita);
+            return cita;
+        });
+    }
+
+    public Cita avanzar(Long idCita) throws CitaException {
+        return cambiarEstado(idCita, EstadoCitaStrategy::avanzar);
+    }
+
+    public Cita cancelar(Long idCita) throws CitaException {
+        return cambiarEstado(idCita, EstadoCitaStrategy::cancelar);
+    }
+
+    public Cita marcarNoAsistio(Long idCita) throws CitaException {
+        return cambiarEstado(idCita, EstadoCitaStrategy::marcarNoAsistio);
+    }
+
+    private interface TransicionEstado {
+        void aplicar(EstadoCitaStrategy estrategia, Cita cita);
+    }
+
+    // Cada intento relee la cita, así una transición que perdió la carrera se evalúa sobre el estado nuevo
+    private Cita cambiarEstado(Long idCita, TransicionEstado transicion) throws CitaException {
+        return conReintentos(em -> {
+            Cita cita = buscar(em, Cita.class, idCita, "Cita");
+            transicion.aplicar(EstadoCitaFactory.getStrategy(cita), cita);
+            return cita;
+        });
+    }
+
+    private interface Operacion {
+        Cita ejecutar(EntityManager em) throws CitaException;
+    }
+
+    private Cita conReintentos(Operacion operacion) throws CitaException {
+        for (int intento = 1; ; intento++) {
+            EntityManager em = emf.createEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                Cita cita = operacion.ejecutar(em);
+                tx.commit();
+                return cita;
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                if (esTurnoOcupado(e)) {
+                    throw new CitaException("El médico o la sala no están disponibles en la fecha y hora solicitadas.");
+                }
+                if (!esConflictoTransitorio(e)) {
+                    throw e;
+                }
+                if (intento >= maxIntentos) {
+                    throw new CitaException("No se pudo completar la operación tras " + maxIntentos
+                            + " intentos por modificaciones concurrentes.");
+                }
+                esperar(intento);
+            } catch (CitaException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            } finally {
+                em.close();
+            }
+        }
+    }
+
+    private <T> T buscar(EntityManager em, Class<T> tipo, Long id, String nombre) throws CitaException {
+        T entidad = em.find(tipo, Objects.requireNonNull(id, nombre + ": el id no puede ser nulo"));
+        if (entidad == null) {
+            throw new CitaException(nombre + " no encontrado: " + id);
+        }
+        return entidad;
+    }
+
+    private static boolean esTurnoOcupado(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException violacion
+                    && violacion.getConstraintName() != null
+                    && violacion.getConstraintName().toLowerCase().contains("bloque")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean esConflictoTransitorio(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockException || t instanceof StaleStateException
+                    || t instanceof PessimisticLockException || t instanceof LockTimeoutException
+                    || t instanceof LockAcquisitionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Espera exponencial con jitter completo, acotada por esperaMaxima
+    private void esperar(int intento) throws CitaException {
+        long tope = Math.min(esperaMaxima.toNanos(), esperaBase.toNanos() << Math.min(intento - 1, 20));
+        try {
+            Thread.sleep(Duration.ofNanos(ThreadLocalRandom.current().nextLong(tope + 1)).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CitaException("Reintento interrumpido.");
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.Sala;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resuelve los DNI de pacientes y médicos y los números de sala que referencia una importación de
+ * citas, sin cargar catálogos enteros. Primero se recorre el archivo juntando las claves distintas,
+ * después se buscan las que no están en caché con consultas {@code IN} de a {@code tamanoBloque}.
+ *
+ * <p>Las entidades encontradas quedan en cachés LRU que se comparten entre importaciones; las claves
+ * que no existen no se cachean (pueden darse de alta después) y se informan todas juntas en la
+ * {@link Resolucion}. Las entidades de la caché están desasociadas: si se modifican en la base
+ * hay que llamar a {@link #invalidar()}.</p>
+ */
+public class ResolutorReferencias {
+
+    /**
+     * Lo que se encontró para una importación y lo que faltó.
+     */
+    public record Resolucion(Map<String, Paciente> pacientes, Map<String, Medico> medicos, Map<String, Sala> salas,
+                             Set<String> pacientesFaltantes, Set<String> medicosFaltantes, Set<String> salasFaltantes) {
+
+        public boolean completa() {
+            return pacientesFaltantes.isEmpty() && medicosFaltantes.isEmpty() && salasFaltantes.isEmpty();
+        }
+
+        /**
+         * Lanza una única {@link CitaException} con todas las claves que no se encontraron.
+         */
+        public void verificarCompleta() throws CitaException {
+            if (completa()) {
+                return;
+            }
+            StringBuilder mensaje = new StringBuilder("Referencias no encontradas en la importación:");
+            agregarFaltantes(mensaje, "pacientes", pacientesFaltantes);
+            agregarFaltantes(mensaje, "médicos", medicosFaltantes);
+            agregarFaltantes(mensaje, "salas", salasFaltantes);
+            throw new CitaException(mensaje.toString());
+        }
+
+        private static void agregarFaltantes(StringBuilder mensaje, String tipo, Set<String> faltantes) {
+            if (!faltantes.isEmpty()) {
+                mensaje.append("\n  ").append(faltantes.size()).append(' ').append(tipo).append(": ").append(faltantes);
+            }
+        }
+    }
+
+    private final EntityManagerFactory emf;
+    private final int tamanoBloque;
+    private final Cache<Paciente> pacientes;
+    private final Cache<Medico> medicos;
+    private final Cache<Sala> salas;
+
+    public ResolutorReferencias(EntityManagerFactory emf, int tamanoBloque, int capacidadCache) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+        if (tamanoBloque <= 0 || capacidadCache < 0) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser positivo y la capacidad no negativa");
+        }
+        this.tamanoBloque = tamanoBloque;
+        this.pacientes = new Cache<>(capacidadCache);
+        this.medicos = new Cache<>(capacidadCache);
+        this.salas = new Cache<>(capacidadCache);
+    }
+
+    /**
+     * Recorre un archivo en el formato de {@code guardarCitas} juntando las claves que referencia y las resuelve.
+     */
+    public Resolucion resolverArchivo(Path archivo) throws IOException {
+        Set<String> dnisPacientes = new LinkedHashSet<>();
+        Set<String> dnisMedicos = new LinkedHashSet<>();
+        Set<String> numerosSala = new LinkedHashSet<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(archivo.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Solo interesan las tres primeras columnas; el formato completo lo valida Cita.fromCsvString
+                int primera = line.indexOf(',');
+                int segunda = primera < 0 ? -1 : line.indexOf(',', primera + 1);
+                int tercera = segunda < 0 ? -1 : line.indexOf(',', segunda + 1);
+                if (tercera < 0) {
+                    continue;
+                }
+                dnisPacientes.add(line.substring(0, primera));
+                dnisMedicos.add(line.substring(primera + 1, segunda));
+                numerosSala.add(line.substring(segunda + 1, tercera));
+            }
+        }
+        return resolver(dnisPacientes, dnisMedicos, numerosSala);
+    }
+
+    public Resolucion resolver(Collection<String> dnisPacientes, Collection<String> dnisMedicos,
+                               Collection<String> numerosSala) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Map<String, Paciente> encontradosPacientes = pacientes.resolver(dnisPacientes, faltan -> buscar(em,
+                    "SELECT p FROM Paciente p LEFT JOIN FETCH p.historiaClinica WHERE p.dni IN :claves",
+                    Paciente.class, faltan, Paciente::getDni));
+            Map<String, Medico> encontradosMedicos = medicos.resolver(dnisMedicos, faltan -> buscar(em,
+                    "SELECT m FROM Medico m LEFT JOIN FETCH m.departamento d LEFT JOIN FETCH d.hospital "
+                            + "WHERE m.dni IN :claves",
+                    Medico.class, faltan, Medico::getDni));
+            // El hospital de la sala hace falta para rutear la cita en PlanificadorParticionado
+            Map<String, Sala> encontradasSalas = salas.resolver(numerosSala, faltan -> buscar(em,
+                    "SELECT s FROM Sala s JOIN FETCH s.tipo JOIN FETCH s.departamento d LEFT JOIN FETCH d.hospital "
+                            + "WHERE s.numero IN :claves",
+                    Sala.class, faltan, Sala::getNumero));
+            return new Resolucion(encontradosPacientes, encontradosMedicos, encontradasSalas,
+                    faltantes(dnisPacientes, encontradosPacientes), faltantes(dnisMedicos, encontradosMedicos),
+                    faltantes(numerosSala, encontradasSalas));
+        } finally {
+            em.close();
+        }
+    }
+
+    public void invalidar() {
+        pacientes.limpiar();
+        medicos.limpiar();
+        salas.limpiar();
+    }
+
+    private <T> Map<String, T> buscar(EntityManager em, String jpql, Class<T> tipo, List<String> claves,
+                                      Function<T, String> clave) {
+        Map<String, T> encontrados = new HashMap<>();
+        for (int desde = 0; desde < claves.size(); desde += tamanoBloque) {
+            List<String> bloque = claves.subList(desde, Math.min(claves.size(), desde + tamanoBloque));
+            for (T entidad : em.createQuery(jpql, tipo)
+                    .setParameter("claves", bloque)
+                    .setHint("org.hibernate.readOnly", true)
+                    .getResultList()) {
+                encontrados.put(clave.apply(entidad), entidad);
+            }
+        }
+        return encontrados;
+    }
+
+    private static Set<String> faltantes(Collection<String> pedidas, Map<String, ?> encontradas) {
+        Set<String> faltantes = new LinkedHashSet<>();
+        for (String clave : pedidas) {
+            if (!encontradas.containsKey(clave)) {
+                faltantes.add(clave);
+            }
+        }
+        return Collections.unmodifiableSet(faltantes);
+    }
+
+    // LRU por orden de acceso, compartida entre importaciones
+    private static final class Cache<T> {
+        private final int capacidad;
+        private final LinkedHashMap<String, T> entradas;
+
+        Cache(int capacidad) {
+            this.capacidad = capacidad;
+            this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                    return size() > Cache.this.capacidad;
+                }
+            };
+        }
+
+        Map<String, T> resolver(Collection<String> claves, Function<List<String>, Map<String, T>> cargar) {
+            Map<String, T> resultado = new HashMap<>();
+            List<String> faltan = new ArrayList<>();
+            synchronized (entradas) {
+                for (String clave : claves) {
+                    T entidad = entradas.get(clave);
+                    if (entidad != null) {
+                        resultado.put(clave, entidad);
+                    } else if (!resultado.containsKey(clave)) {
+                        faltan.add(clave);
+                    }
+                }
+            }
+            if (!faltan.isEmpty()) {
+                Map<String, T> cargadas = cargar.apply(faltan);
+                resultado.putAll(cargadas);
+                synchronized (entradas) {
+                    entradas.putAll(cargadas);
+                }
+            }
+            return resultado;
+        }
+
+        void limpiar() {
+            synchronized (entradas) {
+                entradas.clear();
+            }
+        }
+    }
+}
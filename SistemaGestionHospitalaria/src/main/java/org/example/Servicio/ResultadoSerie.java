@@ -0,0 +1,47 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Resultado de programar una serie: qué pasó con cada ocurrencia y si la serie se confirmó.
+ * En modo todo o nada, si alguna ocurrencia no encontró turno la serie no se confirma y
+ * ninguna cita se crea; el reporte igual indica cuáles chocaban.
+ */
+public record ResultadoSerie(List<Ocurrencia> ocurrencias, boolean confirmada) {
+
+    /**
+     * {@code asignada} es null si la ocurrencia se omitió; {@code cita} es null si no se creó.
+     */
+    public record Ocurrencia(LocalDateTime solicitada, LocalDateTime asignada, Cita cita) {
+
+        public boolean isOmitida() {
+            return asignada == null;
+        }
+
+        public boolean isCorrida() {
+            return asignada != null && !asignada.equals(solicitada);
+        }
+    }
+
+    public ResultadoSerie {
+        ocurrencias = List.copyOf(ocurrencias);
+    }
+
+    public List<Cita> citas() {
+        return ocurrencias.stream()
+                .filter(o -> o.cita() != null)
+                .map(Ocurrencia::cita)
+                .toList();
+    }
+
+    public long omitidas() {
+        return ocurrencias.stream().filter(Ocurrencia::isOmitida).count();
+    }
+
+    public long corridas() {
+        return ocurrencias.stream().filter(Ocurrencia::isCorrida).count();
+    }
+}
@@ -0,0 +1,206 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+import org.example.entidades.Departamento;
+import org.example.entidades.EstadoCita;
+import org.example.entidades.Sala;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de ocupación de salas por sala y por departamento, en buckets de hora, día y semana.
+ * Se mantienen en forma incremental escuchando al {@link CitaManager}: una cita ocupa su sala
+ * mientras está programada, en curso o completada; cancelarla o marcarla como no asistida
+ * la descuenta. Cada cita cuenta en todos los buckets que toca su turno de {@link CitaManager#DURACION_CITA}
+ * (una cita de 10 a 12 ocupa los buckets de las 10 y de las 11). Las consultas de ventana suman solo los
+ * buckets del rango pedido, sin recorrer el historial de citas, y se pueden hacer desde otros hilos
+ * mientras se programan citas.
+ */
+public class UtilizacionSalas implements CitaObservador {
+
+    public enum Granularidad {
+        HORA,
+        DIA,
+        SEMANA;
+
+        long bucket(LocalDateTime fechaHora) {
+            return switch (this) {
+                case HORA -> fechaHora.toEpochSecond(ZoneOffset.UTC) / 3600;
+                case DIA -> fechaHora.toLocalDate().toEpochDay();
+                // El 1/1/1970 fue jueves: se corre 3 días para que las semanas empiecen el lunes
+                case SEMANA -> Math.floorDiv(fechaHora.toLocalDate().toEpochDay() + 3, 7);
+            };
+        }
+    }
+
+    private static final Granularidad[] GRANULARIDADES = Granularidad.values();
+
+    private final int horasOperativasPorDia;
+    // clave (sala o departamento) -> granularidad -> bucket -> cantidad de citas
+    private final Map<Object, Map<Granularidad, NavigableMap<Long, AtomicLong>>> contadores = new ConcurrentHashMap<>();
+
+    public UtilizacionSalas(CitaManager citaManager, int horasOperativasPorDia) {
+        if (horasOperativasPorDia <= 0 || horasOperativasPorDia > 24) {
+            throw new IllegalArgumentException("Las horas operativas por día deben estar entre 1 y 24");
+        }
+        this.horasOperativasPorDia = horasOperativasPorDia;
+        if (citaManager != null) {
+            citaManager.agregarObservador(this);
+        }
+    }
+
+    /**
+     * Incorpora citas que ya existían antes de empezar a escuchar (por ejemplo, las cargadas desde la base).
+     */
+    public void cargar(Collection<Cita> citas) {
+        for (Cita cita : citas) {
+            if (ocupaSala(cita.getEstado())) {
+                sumar(cita, 1);
+            }
+        }
+    }
+
+    @Override
+    public void alProgramar(Cita cita) {
+        if (ocupaSala(cita.getEstado())) {
+            sumar(cita, 1);
+        }
+    }
+
+    @Override
+    public void alCambiarEstado(Cita cita, EstadoCita anterior) {
+        boolean antes = ocupaSala(anterior);
+        boolean ahora = ocupaSala(cita.getEstado());
+        if (antes != ahora) {
+            sumar(cita, ahora ? 1 : -1);
+        }
+    }
+
+    static boolean ocupaSala(EstadoCita estado) {
+        return estado == EstadoCita.PROGRAMADA || estado == EstadoCita.EN_CURSO || estado == EstadoCita.COMPLETADA;
+    }
+
+    private void sumar(Cita cita, long delta) {
+        Sala sala = cita.getSala();
+        LocalDateTime fin = cita.getFechaHora().plus(CitaManager.DURACION_CITA);
+        sumar(sala, cita.getFechaHora(), fin, delta);
+        sumar(sala.getDepartamento(), cita.getFechaHora(), fin, delta);
+    }
+
+    // Suma en cada bucket que se superpone con [inicio, fin)
+    private void sumar(Object clave, LocalDateTime inicio, LocalDateTime fin, long delta) {
+        Map<Granularidad, NavigableMap<Long, AtomicLong>> series = contadores.computeIfAbsent(clave, c -> {
+            Map<Granularidad, NavigableMap<Long, AtomicLong>> nuevas = new EnumMap<>(Granularidad.class);
+            for (Granularidad g : GRANULARIDADES) {
+                nuevas.put(g, new ConcurrentSkipListMap<>());
+            }
+            return nuevas;
+        });
+        for (Granularidad g : GRANULARIDADES) {
+            NavigableMap<Long, AtomicLong> serie = series.get(g);
+            long ultimo = g.bucket(fin.minusNanos(1));
+            for (long bucket = g.bucket(inicio); bucket <= ultimo; bucket++) {
+                serie.computeIfAbsent(bucket, b -> new AtomicLong()).addAndGet(delta);
+            }
+        }
+    }
+
+    /**
+     * Citas que ocupan la sala en los buckets que cubren [desde, hasta). Una cita que toca varios de
+     * esos buckets se cuenta en cada uno.
+     */
+    public long citasEnSala(Sala sala, Granularidad granularidad, LocalDateTime desde, LocalDateTime hasta) {
+        return sumarVentana(sala, granularidad, desde, hasta);
+    }
+
+    public long citasEnDepartamento(Departamento departamento, Granularidad granularidad,
+                                    LocalDateTime desde, LocalDateTime hasta) {
+        return sumarVentana(departamento, granularidad, desde, hasta);
+    }
+
+    /**
+     * Ocupación de cada hora del día (índice 0 a 23) de un departamento.
+     */
+    public long[] ocupacionPorHora(Departamento departamento, LocalDate dia) {
+        long[] horas = new long[24];
+        NavigableMap<Long, AtomicLong> serie = serie(departamento, Granularidad.HORA);
+        if (serie != null) {
+            long primera = Granularidad.HORA.bucket(dia.atStartOfDay());
+            for (Map.Entry<Long, AtomicLong> e : serie.subMap(primera, true, primera + 24, false).entrySet()) {
+                horas[(int) (e.getKey() - primera)] = e.getValue().get();
+            }
+        }
+        return horas;
+    }
+
+    /**
+     * Fracción del tiempo operativo en que la sala estuvo ocupada en los días [desde, hasta). Los turnos
+     * de la grilla no cruzan la medianoche, así que por día cada cita se cuenta una sola vez.
+     */
+    public double utilizacionSala(Sala sala, LocalDate desde, LocalDate hasta) {
+        long citas = sumarVentana(sala, Granularidad.DIA, desde.atStartOfDay(), hasta.atStartOfDay());
+        return utilizacion(citas, 1, desde, hasta);
+    }
+
+    public double utilizacionDepartamento(Departamento departamento, LocalDate desde, LocalDate hasta) {
+        long citas = sumarVentana(departamento, Granularidad.DIA, desde.atStartOfDay(), hasta.atStartOfDay());
+        return utilizacion(citas, departamento.getSalas().size(), desde, hasta);
+    }
+
+    /**
+     * Utilización de cada departamento en los últimos {@code dias} días, incluido hoy.
+     */
+    public Map<Departamento, Double> utilizacionUltimosDias(Collection<Departamento> departamentos, int dias) {
+        if (dias <= 0) {
+            throw new IllegalArgumentException("La ventana debe tener al menos un día");
+        }
+        LocalDate hasta = LocalDate.now().plusDays(1);
+        LocalDate desde = hasta.minusDays(dias);
+        Map<Departamento, Double> resultado = new LinkedHashMap<>();
+        for (Departamento departamento : departamentos) {
+            resultado.put(departamento, utilizacionDepartamento(departamento, desde, hasta));
+        }
+        return resultado;
+    }
+
+    private double utilizacion(long citas, int salas, LocalDate desde, LocalDate hasta) {
+        long dias = hasta.toEpochDay() - desde.toEpochDay();
+        if (dias <= 0 || salas <= 0) {
+            return 0.0;
+        }
+        double horasOcupadas = citas * (CitaManager.DURACION_CITA.toMinutes() / 60.0);
+        return horasOcupadas / ((double) salas * dias * horasOperativasPorDia);
+    }
+
+    private long sumarVentana(Object clave, Granularidad granularidad, LocalDateTime desde, LocalDateTime hasta) {
+        if (!desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+        NavigableMap<Long, AtomicLong> serie = serie(clave, granularidad);
+        if (serie == null) {
+            return 0;
+        }
+        // El último bucket se incluye solo si [desde, hasta) lo toca
+        long ultimo = granularidad.bucket(hasta.minusNanos(1));
+        long total = 0;
+        for (AtomicLong contador : serie.subMap(granularidad.bucket(desde), true, ultimo, true).values()) {
+            total += contador.get();
+        }
+        return total;
+    }
+
+    private NavigableMap<Long, AtomicLong> serie(Object clave, Granularidad granularidad) {
+        Map<Granularidad, NavigableMap<Long, AtomicLong>> series = contadores.get(clave);
+        return series == null ? null : series.get(granularidad);
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.Servicio;
+
+import org.example.entidades.EspecialidadMedica;
+import org.example.entidades.Matricula;
+import org.example.entidades.Persona;
+import org.example.entidades.TipoSangre;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Valida lotes de {@link RegistroPersona} para la sincronización de padrones. A diferencia de los
+ * builders de las entidades, no corta en el primer error: junta todas las violaciones de cada
+ * registro (incluidos DNI y matrículas repetidos dentro del lote) y devuelve un reporte.
+ * Los registros se validan en paralelo con las mismas reglas precompiladas que usan las entidades.
+ */
+public class ValidadorRegistros {
+
+    // Largos máximos según las columnas de Persona y Paciente
+    private static final int MAX_NOMBRE = 100;
+    private static final int MAX_TELEFONO = 20;
+    private static final int MAX_DIRECCION = 300;
+
+    private static final Map<String, TipoSangre> TIPOS_SANGRE = indexar(TipoSangre.values(), TipoSangre::getDescripcion);
+    private static final Map<String, EspecialidadMedica> ESPECIALIDADES =
+            indexar(EspecialidadMedica.values(), EspecialidadMedica::getDescripcion);
+
+    private final LocalDate hoy;
+
+    public ValidadorRegistros() {
+        this(LocalDate.now());
+    }
+
+    ValidadorRegistros(LocalDate hoy) {
+        this.hoy = hoy;
+    }
+
+    public ReporteValidacion validar(List<RegistroPersona> registros) {
+        // Primera pasada: primera aparición de cada DNI y de cada matrícula, para detectar repetidos
+        Map<String, Integer> primerDni = new ConcurrentHashMap<>();
+        Map<String, Integer> primeraMatricula = new ConcurrentHashMap<>();
+        IntStream.range(0, registros.size()).parallel().forEach(i -> {
+            RegistroPersona r = registros.get(i);
+            if (r.dni() != null) {
+                primerDni.merge(r.dni().trim(), i, Math::min);
+            }
+            if (r.tipo() == RegistroPersona.Tipo.MEDICO && r.matricula() != null) {
+                primeraMatricula.merge(r.matricula().trim(), i, Math::min);
+            }
+        });
+
+        // Segunda pasada: todas las reglas de cada registro
+        Map<Integer, List<String>> errores = new ConcurrentHashMap<>();
+        IntStream.range(0, registros.size()).parallel().forEach(i -> {
+            List<String> violaciones = validar(registros.get(i), i, primerDni, primeraMatricula);
+            if (!violaciones.isEmpty()) {
+                errores.put(i, violaciones);
+            }
+        });
+        return new ReporteValidacion(registros.size(), new TreeMap<>(errores));
+    }
+
+    private List<String> validar(RegistroPersona r, int indice,
+                                 Map<String, Integer> primerDni, Map<String, Integer> primeraMatricula) {
+        List<String> violaciones = new ArrayList<>(2);
+        if (r.tipo() == null) {
+            violaciones.add("El tipo de registro no puede ser nulo");
+        }
+        validarTexto(r.nombre(), "nombre", MAX_NOMBRE, violaciones);
+        validarTexto(r.apellido(), "apellido", MAX_NOMBRE, violaciones);
+
+        if (esVacio(r.dni())) {
+            violaciones.add("El DNI no puede ser nulo ni vacío");
+        } else {
+            String dni = r.dni().trim();
+            if (!Persona.PATRON_DNI.matcher(dni).matches()) {
+                violaciones.add("El DNI debe tener 7 u 8 dígitos: " + dni);
+            }
+            int primero = primerDni.get(dni);
+            if (primero != indice) {
+                violaciones.add("DNI duplicado en el lote (ya aparece en el registro #" + primero + ")");
+            }
+        }
+
+        validarFechaNacimiento(r.fechaNacimiento(), violaciones);
+
+        if (esVacio(r.tipoSangre())) {
+            violaciones.add("El tipo de sangre no puede ser nulo");
+        } else if (!TIPOS_SANGRE.containsKey(r.tipoSangre().trim())) {
+            violaciones.add("Tipo de sangre desconocido: " + r.tipoSangre());
+        }
+
+        if (r.tipo() == RegistroPersona.Tipo.MEDICO) {
+            validarMedico(r, indice, primeraMatricula, violaciones);
+        } else if (r.tipo() == RegistroPersona.Tipo.PACIENTE) {
+            validarTexto(r.telefono(), "teléfono", MAX_TELEFONO, violaciones);
+            validarTexto(r.direccion(), "dirección", MAX_DIRECCION, violaciones);
+        }
+        return violaciones;
+    }
+
+    private void validarMedico(RegistroPersona r, int indice, Map<String, Integer> primeraMatricula,
+                               List<String> violaciones) {
+        if (esVacio(r.matricula())) {
+            violaciones.add("La matrícula no puede ser nula");
+        } else {
+            String matricula = r.matricula().trim();
+            if (!Matricula.PATRON_MATRICULA.matcher(matricula).matches()) {
+                violaciones.add("Formato de matrícula inválido: " + matricula);
+            }
+            int primero = primeraMatricula.get(matricula);
+            if (primero != indice) {
+                violaciones.add("Matrícula duplicada en el lote (ya aparece en el registro #" + primero + ")");
+            }
+        }
+        if (esVacio(r.especialidad())) {
+            violaciones.add("La especialidad no puede ser nula");
+        } else if (!ESPECIALIDADES.containsKey(r.especialidad().trim())) {
+            violaciones.add("Especialidad desconocida: " + r.especialidad());
+        }
+    }
+
+    private void validarFechaNacimiento(String valor, List<String> violaciones) {
+        if (esVacio(valor)) {
+            violaciones.add("La fecha de nacimiento no puede ser nula");
+            return;
+        }
+        try {
+            LocalDate fecha = LocalDate.parse(valor.trim());
+            if (fecha.isAfter(hoy)) {
+                violaciones.add("La fecha de nacimiento no puede ser futura: " + valor);
+            }
+        } catch (DateTimeParseException e) {
+            violaciones.add("Fecha de nacimiento inválida (se espera AAAA-MM-DD): " + valor);
+        }
+    }
+
+    private void validarTexto(String valor, String campo, int largoMaximo, List<String> violaciones) {
+        if (esVacio(valor)) {
+            violaciones.add("El campo " + campo + " no puede ser nulo ni vacío");
+        } else if (valor.length() > largoMaximo) {
+            violaciones.add("El campo " + campo + " supera los " + largoMaximo + " caracteres");
+        }
+    }
+
+    private static boolean esVacio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+
+    // Acepta tanto el nombre del enum (A_POSITIVO) como su descripción (A+)
+    private static <E extends Enum<E>> Map<String, E> indexar(E[] valores, Function<E, String> descripcion) {
+        Map<String, E> indice = new HashMap<>();
+        for (E valor : valores) {
+            indice.put(valor.name(), valor);
+            indice.put(descripcion.apply(valor), valor);
+        }
+        return Map.copyOf(indice);
+    }
+}
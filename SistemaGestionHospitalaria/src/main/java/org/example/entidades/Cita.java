@@ -3,21 +3,39 @@ package org.example.entidades;
 import jakarta.persistence.*;
 import org.example.Servicio.*;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Map;
 import java.util.Objects;
 
 @Getter
 @ToString(exclude = {"paciente", "medico", "sala"})
 @Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED, force = true)
 
 @Entity
-@Table(name="cita_tabla")
+@Table(name="cita_tabla", uniqueConstraints = {
+        // Dos citas activas que se superponen comparten al menos un bloque (ver actualizarBloques)
+        @UniqueConstraint(name = "uk_cita_sala_bloque_par", columnNames = {"sala_id", "bloque_par"}),
+        @UniqueConstraint(name = "uk_cita_sala_bloque_impar", columnNames = {"sala_id", "bloque_impar"}),
+        @UniqueConstraint(name = "uk_cita_medico_bloque_par", columnNames = {"medico_id", "bloque_par"}),
+        @UniqueConstraint(name = "uk_cita_medico_bloque_impar", columnNames = {"medico_id", "bloque_impar"})
+}, indexes = {
+        // Agendas, disponibilidad y listados filtran por dueño y rango de fechas, ordenando por fecha
+        @Index(name = "idx_cita_medico_fecha", columnList = "medico_id, fecha_hora"),
+        @Index(name = "idx_cita_sala_fecha", columnList = "sala_id, fecha_hora"),
+        @Index(name = "idx_cita_paciente_fecha", columnList = "paciente_id, fecha_hora"),
+        // Conteos por estado y exportaciones por rango
+        @Index(name = "idx_cita_estado_fecha", columnList = "estado, fecha_hora"),
+        @Index(name = "idx_cita_fecha", columnList = "fecha_hora")
+})
 public class Cita {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -40,6 +58,15 @@ public class Cita {
     private EstadoCita estado;
     @Column(name="observaciones")
     private String observaciones;
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+    @Column(name="bloque_par")
+    @Setter(AccessLevel.NONE)
+    private Long bloquePar;
+    @Column(name="bloque_impar")
+    @Setter(AccessLevel.NONE)
+    private Long bloqueImpar;
 
     private Cita(CitaBuilder builder) {
         this.paciente = Objects.requireNonNull(builder.paciente, "El paciente no puede ser nulo");
@@ -49,6 +76,49 @@ public class Cita {
         this.costo = Objects.requireNonNull(builder.costo, "El costo no puede ser nulo");
         this.estado = builder.estado != null ? builder.estado : EstadoCita.PROGRAMADA;
         this.observaciones = builder.observaciones != null ? builder.observaciones : "";
+        actualizarBloques();
+    }
+
+    public void setEstado(EstadoCita estado) {
+        this.estado = estado;
+        actualizarBloques();
+    }
+
+    /**
+     * Mientras la cita ocupa turno (programada o en curso) reserva los bloques de
+     * {@link CitaManager#DURACION_CITA} que toca su horario. Los bloques pares e impares van en
+     * columnas separadas con restricción única por sala y por médico, así la base rechaza dos citas
+     * superpuestas aunque las reserven nodos distintos. Al salir de esos estados los bloques quedan
+     * en null y el turno se libera. Las citas nuevas solo empiezan al inicio de un turno
+     * ({@link CitaManager#esInicioDeTurno}) y ocupan un único bloque, así que la base rechaza
+     * exactamente los turnos que el manager ve ocupados; los dos bloques quedan para filas viejas
+     * fuera de la grilla.
+     */
+    private void actualizarBloques() {
+        bloquePar = null;
+        bloqueImpar = null;
+        if (estado != EstadoCita.PROGRAMADA && estado != EstadoCita.EN_CURSO) {
+            return;
+        }
+        long[] bloques = bloquesDe(fechaHora);
+        for (long bloque : bloques) {
+            if (bloque % 2 == 0) {
+                bloquePar = bloque;
+            } else {
+                bloqueImpar = bloque;
+            }
+        }
+    }
+
+    /**
+     * Bloques de la grilla de turnos que cubre una cita que empieza en {@code fechaHora}.
+     */
+    public static long[] bloquesDe(LocalDateTime fechaHora) {
+        long duracion = CitaManager.DURACION_CITA.toSeconds();
+        long inicio = fechaHora.toEpochSecond(ZoneOffset.UTC);
+        long primero = Math.floorDiv(inicio, duracion);
+        long ultimo = Math.floorDiv(inicio + duracion - 1, duracion);
+        return primero == ultimo ? new long[]{primero} : new long[]{primero, ultimo};
     }
 
     public static class CitaBuilder {
@@ -106,21 +176,23 @@ public class Cita {
 
 
     public String toCsvString() {
-        return String.format("%s,%s,%s,%s,%s,%s,%s",
-                paciente.getDni(),
-                medico.getDni(),
-                sala.getNumero(),
-                fechaHora.toString(),
-                costo.toString(),
-                estado.name(),
-                observaciones.replaceAll(",", ";"));
+        // Se llama una vez por cita al guardar: StringBuilder y replace de char evitan String.format y regex
+        return new StringBuilder(96)
+                .append(paciente.getDni()).append(',')
+                .append(medico.getDni()).append(',')
+                .append(sala.getNumero()).append(',')
+                .append(fechaHora).append(',')
+                .append(costo).append(',')
+                .append(estado.name()).append(',')
+                .append(observaciones.replace(',', ';'))
+                .toString();
     }
 
     public static Cita fromCsvString(String csvString,
                                      Map<String, Paciente> pacientes,
                                      Map<String, Medico> medicos,
                                      Map<String, Sala> salas) throws CitaException {
-        String[] values = csvString.split(",");
+        String[] values = csvString.split(",", -1);
         if (values.length != 7) {
             throw new CitaException("Formato de CSV inválido para Cita: " + csvString);
         }
@@ -131,7 +203,7 @@ public class Cita {
         LocalDateTime fechaHora = LocalDateTime.parse(values[3]);
         BigDecimal costo = new BigDecimal(values[4]);
         EstadoCita estado = EstadoCita.valueOf(values[5]);
-        String observaciones = values[6].replaceAll(";", ",");
+        String observaciones = values[6].replace(';', ',');
 
         Paciente paciente = pacientes.get(dniPaciente);
         Medico medico = medicos.get(dniMedico);
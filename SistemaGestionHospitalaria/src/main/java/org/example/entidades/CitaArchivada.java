@@ -0,0 +1,53 @@
+package org.example.entidades;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Cita terminada (completada, cancelada o no asistida) que se movió de {@code cita_tabla} al archivo.
+ * Conserva el id original. Es de solo lectura: las filas las escribe {@code ArchivoCitas} con SQL directo.
+ */
+@Getter
+@ToString(exclude = {"paciente", "medico", "sala"})
+@NoArgsConstructor(access = AccessLevel.PROTECTED, force = true)
+
+@Entity
+@Immutable
+@Table(name = "cita_archivo", indexes = {
+        // Las mismas rutas de acceso que las citas activas, para cuando un rango llega al archivo
+        @Index(name = "idx_archivo_medico_fecha", columnList = "medico_id, fecha_hora"),
+        @Index(name = "idx_archivo_sala_fecha", columnList = "sala_id, fecha_hora"),
+        @Index(name = "idx_archivo_paciente_fecha", columnList = "paciente_id, fecha_hora"),
+        @Index(name = "idx_archivo_fecha", columnList = "fecha_hora")
+})
+public class CitaArchivada {
+    @Id
+    private final Long idCita;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "paciente_id", nullable = false)
+    private final Paciente paciente;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "medico_id", nullable = false)
+    private final Medico medico;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sala_id", nullable = false)
+    private final Sala sala;
+    @Column(name = "fecha_hora", nullable = false)
+    private final LocalDateTime fechaHora;
+    @Column(name = "costo")
+    private final BigDecimal costo;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false)
+    private final EstadoCita estado;
+    @Column(name = "observaciones")
+    private final String observaciones;
+    @Column(name = "archivada_en", nullable = false)
+    private final LocalDateTime archivadaEn;
+}
@@ -4,9 +4,12 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 @Getter
 @ToString(exclude = {"hospital", "medicos", "salas"})
@@ -26,7 +29,7 @@ public class Departamento {
     @ManyToOne
     private Hospital hospital;
     @OneToMany(mappedBy="departamento")
-    private final List<Medico> medicos = new ArrayList<>();
+    private final Set<Medico> medicos = new LinkedHashSet<>();
     @OneToMany(mappedBy="departamento")
     private final List<Sala> salas = new ArrayList<>();
 
@@ -53,23 +56,43 @@ public class Departamento {
             if(!medico.getEspecialidad().equals(this.especialidad)) {
                 throw new IllegalArgumentException("Especialidad Incompatible");
             }
-            medicos.add(medico);
+            // setDepartamento mantiene ambos lados de la relación
             medico.setDepartamento(this);
         }
     }
 
-    public Sala crearSala(String numero, String tipo) {
+    /**
+     * Alta masiva de médicos. Se validan todas las especialidades antes de agregar,
+     * así que ante un médico incompatible no se agrega ninguno.
+     */
+    public void agregarMedicos(Collection<Medico> nuevos) {
+        Objects.requireNonNull(nuevos, "La colección de médicos no puede ser nula");
+        for (Medico medico : nuevos) {
+            if (medico != null && !medico.getEspecialidad().equals(this.especialidad)) {
+                throw new IllegalArgumentException("Especialidad Incompatible");
+            }
+        }
+        for (Medico medico : nuevos) {
+            agregarMedico(medico);
+        }
+    }
+
+    public Sala crearSala(String numero, EntradaCatalogo tipo) {
         Sala s = Sala.builder()
                 .numero(numero)
                 .tipo(tipo)
+                .departamento(this)
                 .build();
-        s.setDepartamento(this);
         this.salas.add(s);
         return s;
     }
 
-    public List<Medico> getMedicos() {
-        return Collections.unmodifiableList(medicos);
+    public Set<Medico> getMedicos() {
+        return Collections.unmodifiableSet(medicos);
+    }
+
+    Set<Medico> getInternalMedicos() {
+        return medicos;
     }
 
     public List<Sala> getSalas() {
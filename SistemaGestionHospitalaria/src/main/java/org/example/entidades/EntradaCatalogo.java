@@ -0,0 +1,81 @@
+package org.example.entidades;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.Objects;
+
+/**
+ * Valor de un catálogo (diagnóstico, tratamiento o tipo de sala). Las historias clínicas y las salas
+ * guardan el id entero en lugar del texto, que queda una sola vez en esta tabla.
+ * Las entradas se obtienen o se dan de alta con {@code CatalogoClinico}, que las mantiene en memoria.
+ */
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+@Table(name = "catalogo", uniqueConstraints = @UniqueConstraint(name = "uk_catalogo_tipo_descripcion",
+        columnNames = {"tipo", "descripcion"}))
+public class EntradaCatalogo {
+    public static final int LARGO_MAXIMO = 500;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 20)
+    private TipoCatalogo tipo;
+
+    @Column(name = "descripcion", nullable = false, length = LARGO_MAXIMO)
+    private String descripcion;
+
+    public EntradaCatalogo(TipoCatalogo tipo, String descripcion) {
+        this.tipo = Objects.requireNonNull(tipo, "El tipo de catálogo no puede ser nulo");
+        this.descripcion = normalizar(descripcion);
+    }
+
+    /**
+     * Forma canónica de una descripción: sin espacios sobrantes e internada, así todas las copias comparten el texto.
+     */
+    public static String normalizar(String descripcion) {
+        Objects.requireNonNull(descripcion, "La descripción no puede ser nula");
+        String limpia = descripcion.trim().replaceAll("\\s+", " ");
+        if (limpia.isEmpty() || limpia.length() > LARGO_MAXIMO) {
+            throw new IllegalArgumentException("La descripción debe tener entre 1 y " + LARGO_MAXIMO + " caracteres");
+        }
+        return limpia.intern();
+    }
+
+    public void verificarTipo(TipoCatalogo esperado) {
+        if (tipo != esperado) {
+            throw new IllegalArgumentException("Se esperaba una entrada de " + esperado.getDescripcion()
+                    + " y se recibió una de " + tipo.getDescripcion());
+        }
+    }
+
+    @PostLoad
+    private void internar() {
+        descripcion = descripcion.intern();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntradaCatalogo otra)) {
+            return false;
+        }
+        return tipo == otra.tipo && descripcion.equals(otra.descripcion);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tipo, descripcion);
+    }
+}
@@ -32,15 +32,16 @@ public class HistoriaClinica {
     @Column(name = "fecha_creacion", nullable = false)
     private LocalDateTime fechaCreacion;
 
+    // Diagnósticos y tratamientos guardan el id del catálogo; el índice permite buscar por diagnóstico
     @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(name = "diagnosticos", joinColumns = @JoinColumn(name = "historia_clinica_id"))
-    @Column(name = "diagnostico", length = 500)
-    private List<String> diagnosticos = new ArrayList<>();
+    @CollectionTable(name = "diagnosticos", joinColumns = @JoinColumn(name = "historia_clinica_id"),
+            indexes = @Index(name = "idx_diagnostico_catalogo", columnList = "catalogo_id, historia_clinica_id"))
+    private List<RegistroClinico> diagnosticos = new ArrayList<>();
 
     @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(name = "tratamientos", joinColumns = @JoinColumn(name = "historia_clinica_id"))
-    @Column(name = "tratamiento", length = 500)
-    private List<String> tratamientos = new ArrayList<>();
+    @CollectionTable(name = "tratamientos", joinColumns = @JoinColumn(name = "historia_clinica_id"),
+            indexes = @Index(name = "idx_tratamiento_catalogo", columnList = "catalogo_id, historia_clinica_id"))
+    private List<RegistroClinico> tratamientos = new ArrayList<>();
 
     @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "alergias", joinColumns = @JoinColumn(name = "historia_clinica_id"))
@@ -85,16 +86,22 @@ public class HistoriaClinica {
         return "HC-" + paciente.getDni() + "-" + System.currentTimeMillis();
     }
 
-    public void agregarDiagnostico(String diagnostico) {
-        if (diagnostico != null && !diagnostico.trim().isEmpty() && diagnostico.length() < 500) {
-            diagnosticos.add(diagnostico);
-        }
+    public void agregarDiagnostico(EntradaCatalogo diagnostico) {
+        agregarDiagnostico(diagnostico, null);
     }
 
-    public void agregarTratamiento(String tratamiento) {
-        if (tratamiento != null && !tratamiento.trim().isEmpty() &&  tratamiento.length() < 500) {
-            tratamientos.add(tratamiento);
-        }
+    public void agregarDiagnostico(EntradaCatalogo diagnostico, String nota) {
+        Objects.requireNonNull(diagnostico, "El diagnóstico no puede ser nulo").verificarTipo(TipoCatalogo.DIAGNOSTICO);
+        diagnosticos.add(new RegistroClinico(diagnostico, nota));
+    }
+
+    public void agregarTratamiento(EntradaCatalogo tratamiento) {
+        agregarTratamiento(tratamiento, null);
+    }
+
+    public void agregarTratamiento(EntradaCatalogo tratamiento, String nota) {
+        Objects.requireNonNull(tratamiento, "El tratamiento no puede ser nulo").verificarTipo(TipoCatalogo.TRATAMIENTO);
+        tratamientos.add(new RegistroClinico(tratamiento, nota));
     }
 
     public void agregarAlergia(String alergia) {
@@ -103,11 +110,11 @@ public class HistoriaClinica {
         }
     }
 
-    public List<String> getDiagnosticos() {
+    public List<RegistroClinico> getDiagnosticos() {
         return Collections.unmodifiableList(diagnosticos);
     }
 
-    public List<String> getTratamientos() {
+    public List<RegistroClinico> getTratamientos() {
         return Collections.unmodifiableList(tratamientos);
     }
 
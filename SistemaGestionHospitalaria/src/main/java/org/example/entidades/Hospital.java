@@ -3,13 +3,15 @@ package org.example.entidades;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.Set;
 
-@EqualsAndHashCode
 @Builder
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor(access = AccessLevel.PROTECTED, force = true)
 @Getter
 @ToString(exclude = {"departamentos", "pacientes"})
 
@@ -27,37 +29,79 @@ public class Hospital {
     private final String telefono;
 
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, mappedBy = "hospital")
-    private final List<Departamento> departamentos = new ArrayList<>();
+    private final Set<Departamento> departamentos = new LinkedHashSet<>();
     @OneToMany(cascade=CascadeType.ALL, orphanRemoval = true, mappedBy = "hospital")
-    private final List<Paciente> pacientes = new ArrayList<>();
+    private final Set<Paciente> pacientes = new LinkedHashSet<>();
 
     public void agregarDepartamento(Departamento departamento) {
-        if (departamento != null && !departamentos.contains(departamento)) {
-            departamentos.add(departamento);
+        if (departamento != null && departamento.getHospital() != this) {
+            // setHospital mantiene ambos lados de la relación
             departamento.setHospital(this);
         }
     }
 
     public void agregarPaciente(Paciente paciente) {
-        if (paciente != null && !pacientes.contains(paciente)) {
-            pacientes.add(paciente);
+        if (paciente != null && paciente.getHospital() != this) {
+            // setHospital mantiene ambos lados de la relación
             paciente.setHospital(this);
         }
     }
 
-    public List<Departamento> getDepartamentos() {
-        return Collections.unmodifiableList(departamentos);
+    /**
+     * Alta masiva de pacientes; cada alta es O(1) porque las pertenencias se resuelven con sets.
+     */
+    public void agregarPacientes(Collection<Paciente> nuevos) {
+        Objects.requireNonNull(nuevos, "La colección de pacientes no puede ser nula");
+        for (Paciente paciente : nuevos) {
+            agregarPaciente(paciente);
+        }
+    }
+
+    /**
+     * Mueve un paciente de este hospital a otro, actualizando ambos hospitales.
+     */
+    public void transferirPaciente(Paciente paciente, Hospital destino) {
+        Objects.requireNonNull(paciente, "El paciente no puede ser nulo");
+        Objects.requireNonNull(destino, "El hospital de destino no puede ser nulo");
+        if (!pacientes.contains(paciente)) {
+            throw new IllegalArgumentException("El paciente no pertenece a este hospital");
+        }
+        paciente.setHospital(destino);
+    }
+
+    /**
+     * Transfiere todos los pacientes indicados; si alguno no pertenece a este hospital no se mueve ninguno.
+     */
+    public void transferirPacientes(Collection<Paciente> aTransferir, Hospital destino) {
+        Objects.requireNonNull(aTransferir, "La colección de pacientes no puede ser nula");
+        Objects.requireNonNull(destino, "El hospital de destino no puede ser nulo");
+        for (Paciente paciente : aTransferir) {
+            if (!pacientes.contains(paciente)) {
+                throw new IllegalArgumentException("El paciente " + paciente.getDni() + " no pertenece a este hospital");
+            }
+        }
+        for (Paciente paciente : aTransferir) {
+            paciente.setHospital(destino);
+        }
+    }
+
+    public boolean tienePaciente(Paciente paciente) {
+        return pacientes.contains(paciente);
+    }
+
+    public Set<Departamento> getDepartamentos() {
+        return Collections.unmodifiableSet(departamentos);
     }
 
-    public List<Paciente> getPacientes() {
-        return Collections.unmodifiableList(pacientes);
+    public Set<Paciente> getPacientes() {
+        return Collections.unmodifiableSet(pacientes);
     }
 
-    List<Departamento> getInternalDepartamentos() {
+    Set<Departamento> getInternalDepartamentos() {
         return departamentos;
     }
 
-    List<Paciente> getInternalPacientes() {
+    Set<Paciente> getInternalPacientes() {
         return pacientes;
     }
 
@@ -2,16 +2,22 @@ package org.example.entidades;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 @Getter
 @ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED, force = true)
 
 @Embeddable
 public class Matricula {
+    public static final Pattern PATRON_MATRICULA = Pattern.compile("MP-\\d{4,6}");
+
     @Column(name="numero_matrícula", nullable = false, unique = true)
     private final String numero;
 
@@ -21,7 +27,7 @@ public class Matricula {
 
     private String validarMatricula(String numero) {
         Objects.requireNonNull(numero, "El número de matrícula no puede ser nulo");
-        if (!numero.matches("MP-\\d{4,6}")) {
+        if (!PATRON_MATRICULA.matcher(numero).matches()) {
             throw new IllegalArgumentException("Formato de matrícula inválido. Debe ser como MP-12345");
         }
         return numero;
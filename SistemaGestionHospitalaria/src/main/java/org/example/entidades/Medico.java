@@ -1,7 +1,9 @@
 package org.example.entidades;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
@@ -13,6 +15,7 @@ import java.util.Objects;
 @Getter
 @Setter
 @SuperBuilder
+@NoArgsConstructor(access = AccessLevel.PROTECTED, force = true)
 
 @Entity
 @Table(name="médico_tabla")
@@ -21,6 +24,10 @@ public class Medico extends Persona{
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long idMedico;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @Embedded
     private Matricula matricula;
 
@@ -38,6 +45,7 @@ public class Medico extends Persona{
     protected Medico(MedicoBuilder<?, ?> b) {
         super(b);
         this.citas = new ArrayList<>();
+        this.version = 0L;
         this.especialidad = Objects.requireNonNull(b.especialidad, "Especialidad no puede ser nula");
 
         if (b.matricula != null) {
@@ -52,7 +60,13 @@ public class Medico extends Persona{
 
     public void setDepartamento(Departamento departamento) {
         if (this.departamento != departamento) {
+            if (this.departamento != null) {
+                this.departamento.getInternalMedicos().remove(this);
+            }
             this.departamento = departamento;
+            if (departamento != null) {
+                departamento.getInternalMedicos().add(this);
+            }
         }
     }
 
@@ -64,5 +78,13 @@ public class Medico extends Persona{
         return Collections.unmodifiableList(new ArrayList<>(citas));
     }
 
+    /**
+     * Citas del médico sin copiar; la colección perezosa se carga recién cuando se recorre la vista.
+     * Para solo contarlas, {@link org.example.Servicio.ConsultaCitasService#contarCitas(Medico)}.
+     */
+    public List<Cita> getCitasVista() {
+        return Collections.unmodifiableList(citas);
+    }
+
 
 }
\ No newline at end of file
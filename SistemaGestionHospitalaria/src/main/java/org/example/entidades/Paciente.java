@@ -13,7 +13,10 @@ import java.util.Objects;
 
 
 @Entity
-@Table(name = "pacientes")
+@Table(name = "pacientes", indexes = {
+        // Listado paginado por hospital ordenado por apellido y nombre; el dni ya tiene índice único
+        @Index(name = "idx_paciente_hospital_apellido", columnList = "hospital_id, apellido, nombre")
+})
 @Getter
 @SuperBuilder
 @NoArgsConstructor
@@ -90,6 +93,14 @@ public class Paciente extends Persona {
         return Collections.unmodifiableList(new ArrayList<>(citas));
     }
 
+    /**
+     * Vista de solo lectura de las citas del paciente, que no inicializa la colección hasta que se la lee.
+     * El conteo sin leerlas está en {@link org.example.Servicio.ConsultaCitasService#contarCitas(Paciente)}.
+     */
+    public List<Cita> getCitasVista() {
+        return Collections.unmodifiableList(citas);
+    }
+
     private String validarString(String valor, String mensajeError) {
         // Validar que no sea null
         Objects.requireNonNull(valor, mensajeError);
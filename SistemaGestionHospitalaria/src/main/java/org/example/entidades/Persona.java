@@ -9,6 +9,7 @@ import lombok.experimental.SuperBuilder;
 
 import java.time.LocalDate;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 @Getter
 @ToString
@@ -17,6 +18,9 @@ import java.util.Objects;
 @MappedSuperclass
 public abstract class Persona {
 
+    // Compilado una sola vez: String.matches recompila la expresión en cada llamada
+    public static final Pattern PATRON_DNI = Pattern.compile("\\d{7,8}");
+
     @Column(nullable = false, length = 100)
     protected String nombre;
 
@@ -68,7 +72,7 @@ public abstract class Persona {
         // Validar que no sea null
         Objects.requireNonNull(dni, "El DNI no puede ser nulo");
         // Validar formato: 7 u 8 dígitos numéricos
-        if (!dni.matches("\\d{7,8}")) {
+        if (!PATRON_DNI.matcher(dni).matches()) {
             throw new IllegalArgumentException("El DNI debe tener 7 u 8 dígitos");
         }
         return dni;
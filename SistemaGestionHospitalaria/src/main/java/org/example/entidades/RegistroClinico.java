@@ -0,0 +1,41 @@
+package org.example.entidades;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.Objects;
+
+/**
+ * Un diagnóstico o tratamiento de una historia clínica: la entrada del catálogo y, si hace falta,
+ * una nota libre para lo que no entra en el catálogo (dosis, lateralidad, observaciones).
+ */
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED, force = true)
+
+@Embeddable
+public class RegistroClinico {
+    public static final int LARGO_MAXIMO_NOTA = 500;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "catalogo_id", nullable = false)
+    private final EntradaCatalogo entrada;
+
+    @Column(name = "nota", length = LARGO_MAXIMO_NOTA)
+    private final String nota;
+
+    public RegistroClinico(EntradaCatalogo entrada, String nota) {
+        this.entrada = Objects.requireNonNull(entrada, "La entrada del catálogo no puede ser nula");
+        if (nota != null && nota.length() > LARGO_MAXIMO_NOTA) {
+            throw new IllegalArgumentException("La nota no puede superar los " + LARGO_MAXIMO_NOTA + " caracteres");
+        }
+        this.nota = nota == null || nota.isBlank() ? null : nota;
+    }
+
+    public String getDescripcion() {
+        return entrada.getDescripcion();
+    }
+}
@@ -12,7 +12,7 @@ import java.util.Objects;
 @ToString(exclude = {"citas"})
 
 @Entity
-@Table(name = "salas", uniqueConstraints = @UniqueConstraint(columnNames = {"numero"}))
+@Table(name = "salas", uniqueConstraints = @UniqueConstraint(columnNames = {"número"}))
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Sala{
 
@@ -20,11 +20,16 @@ public class Sala{
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long idSala;
 
+    @Version
+    private Long version = 0L;
+
     @Column(name="número", nullable = false)
     private String numero;
 
-    @Column(name="tipo",nullable = false)
-    private String tipo;
+    // Catálogo chico y compartido por todas las salas: se trae con la sala
+    @ManyToOne(optional = false)
+    @JoinColumn(name="tipo_id", nullable = false)
+    private EntradaCatalogo tipo;
 
     @Setter
     @ManyToOne(fetch = FetchType.LAZY)
@@ -37,9 +42,10 @@ public class Sala{
     private List<Cita> citas = new ArrayList<>();
 
     @Builder
-    protected Sala(String numero, String tipo, Departamento departamento) {
+    protected Sala(String numero, EntradaCatalogo tipo, Departamento departamento) {
         this.numero = Objects.requireNonNull(numero, "Numero no puede ser nulo");
         this.tipo = Objects.requireNonNull(tipo, "Tipo no puede ser nulo");
+        tipo.verificarTipo(TipoCatalogo.TIPO_SALA);
         this.departamento=Objects.requireNonNull(departamento, "Departamento no puede ser nulo");
     }
 
@@ -53,6 +59,14 @@ public class Sala{
         return Collections.unmodifiableList(new ArrayList<>(citas));
     }
 
+    /**
+     * Turnos de la sala sin copiar la lista; pedir la vista no consulta la base, leerla sí.
+     * Contarlos no necesita leerlos: {@link org.example.Servicio.ConsultaCitasService#contarCitas(Sala)}.
+     */
+    public List<Cita> getCitasVista() {
+        return Collections.unmodifiableList(citas);
+    }
+
     private String validarString(String valor, String mensajeError) {
         Objects.requireNonNull(valor, mensajeError);
         if (valor.trim().isEmpty()) {
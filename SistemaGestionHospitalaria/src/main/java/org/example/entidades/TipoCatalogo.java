@@ -0,0 +1,14 @@
+package org.example.entidades;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@Getter
+public enum TipoCatalogo {
+    DIAGNOSTICO("Diagnóstico"),
+    TRATAMIENTO("Tratamiento"),
+    TIPO_SALA("Tipo de sala");
+
+    private final String descripcion;
+}
@@ -16,5 +16,49 @@ public enum TipoSangre {
     O_POSITIVO("O+"),
     O_NEGATIVO("O-");
 
+    // Matriz de compatibilidad precalculada: por ordinal, máscara de bits con los ordinales compatibles
+    private static final int[] DONANTES = new int[values().length];
+    private static final int[] RECEPTORES = new int[values().length];
+
+    static {
+        for (TipoSangre receptor : values()) {
+            for (TipoSangre donante : values()) {
+                if (donante.compatibleCon(receptor)) {
+                    DONANTES[receptor.ordinal()] |= 1 << donante.ordinal();
+                    RECEPTORES[donante.ordinal()] |= 1 << receptor.ordinal();
+                }
+            }
+        }
+    }
+
     private final String descripcion;
+
+    /**
+     * Tipos que pueden donarle glóbulos rojos a este, como máscara de ordinales.
+     */
+    public int mascaraDonantes() {
+        return DONANTES[ordinal()];
+    }
+
+    /**
+     * Tipos a los que este puede donarles, como máscara de ordinales.
+     */
+    public int mascaraReceptores() {
+        return RECEPTORES[ordinal()];
+    }
+
+    public boolean puedeDonarA(TipoSangre receptor) {
+        return (DONANTES[receptor.ordinal()] & (1 << ordinal())) != 0;
+    }
+
+    // El donante no puede tener antígenos (A, B, Rh) que el receptor no tenga
+    private boolean compatibleCon(TipoSangre receptor) {
+        return (!tieneAntigeno('A') || receptor.tieneAntigeno('A'))
+                && (!tieneAntigeno('B') || receptor.tieneAntigeno('B'))
+                && (!descripcion.endsWith("+") || receptor.descripcion.endsWith("+"));
+    }
+
+    private boolean tieneAntigeno(char antigeno) {
+        return descripcion.indexOf(antigeno) >= 0;
+    }
 }
@@ -0,0 +1,68 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+import org.example.entidades.Departamento;
+import org.example.entidades.Hospital;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.Sala;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * El asignador sigue la carga de cada médico por los avisos del {@link CitaManager}: una cita
+ * programada por fuera del asignador suma y una cancelada descuenta.
+ */
+class AsignadorCitasTest {
+
+    private static final BigDecimal COSTO = new BigDecimal("1000.00");
+    private static final LocalDateTime TURNO = LocalDate.now().plusYears(1).atTime(10, 0);
+
+    @Test
+    void eligeAlMedicoMenosCargadoDeLaEspecialidad() throws CitaException {
+        GeneradorDatos generador = new GeneradorDatos(EscalaDatos.pequena());
+        Hospital hospital = generador.generarHospital(0);
+        List<Paciente> pacientes = generador.generarPacientes(hospital, 0, 0, 3);
+        Departamento departamento = conDosMedicos(hospital);
+        Iterator<Medico> medicos = departamento.getMedicos().iterator();
+        Medico primero = medicos.next();
+        Medico segundo = medicos.next();
+        Sala sala = departamento.getSalas().get(0);
+        CitaManager manager = new CitaManager();
+        AsignadorCitas asignador = new AsignadorCitas(manager);
+        asignador.registrarHospital(hospital);
+
+        Cita previa = manager.programarCita(pacientes.get(0), primero, sala, TURNO, COSTO);
+        assertEquals(1, asignador.getCarga(primero));
+
+        Cita asignada = asignador.asignar(pacientes.get(1), departamento.getEspecialidad(),
+                TURNO, TURNO.plusHours(8), COSTO);
+        assertSame(segundo, asignada.getMedico());
+        assertEquals(TURNO, asignada.getFechaHora());
+        assertEquals(1, asignador.getCarga(segundo));
+
+        // Sin la cita previa el primero vuelve a ser el menos cargado
+        manager.cancelarCita(previa);
+        assertEquals(0, asignador.getCarga(primero));
+        Cita siguiente = asignador.asignar(pacientes.get(2), departamento.getEspecialidad(),
+                TURNO, TURNO.plusHours(8), COSTO);
+        assertSame(primero, siguiente.getMedico());
+    }
+
+    private static Departamento conDosMedicos(Hospital hospital) {
+        for (Departamento departamento : hospital.getDepartamentos()) {
+            if (departamento.getMedicos().size() >= 2) {
+                return departamento;
+            }
+        }
+        throw new IllegalStateException("El hospital generado no tiene un departamento con dos médicos");
+    }
+}
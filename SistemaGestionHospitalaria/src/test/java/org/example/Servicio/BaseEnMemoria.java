@@ -0,0 +1,34 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base H2 en memoria cargada con el dataset sintético, para las pruebas que necesitan datos.
+ * Cada nombre es una base aparte; no toca data/testdb.
+ */
+final class BaseEnMemoria {
+
+    private BaseEnMemoria() {
+    }
+
+    static EntityManagerFactory crear(String nombre, EscalaDatos escala, Map<String, Object> propiedadesExtra)
+            throws InterruptedException {
+        Map<String, Object> propiedades = new HashMap<>(propiedadesExtra);
+        propiedades.put("jakarta.persistence.jdbc.url", "jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1");
+        propiedades.put("hibernate.hbm2ddl.auto", "create");
+        propiedades.put("hibernate.show_sql", "false");
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hospital-persistence-unit", propiedades);
+        try {
+            new CargadorMasivo(emf, Runtime.getRuntime().availableProcessors(), 1_000)
+                    .cargar(new GeneradorDatos(escala));
+        } catch (RuntimeException | InterruptedException e) {
+            emf.close();
+            throw e;
+        }
+        return emf;
+    }
+}
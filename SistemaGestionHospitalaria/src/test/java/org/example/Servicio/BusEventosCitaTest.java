@@ -0,0 +1,110 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+import org.example.entidades.Departamento;
+import org.example.entidades.Hospital;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.Sala;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Entrega en orden, contrapresión con el buffer lleno y cierre del bus. Cerrar espera al consumidor,
+ * así que después de cerrar se ven todos los eventos entregados.
+ */
+class BusEventosCitaTest {
+
+    private static final BigDecimal COSTO = new BigDecimal("1000.00");
+    private static final LocalDateTime TURNO = LocalDate.now().plusYears(1).atTime(10, 0);
+
+    private Paciente paciente;
+    private Medico medico;
+    private Sala sala;
+    private CitaManager manager;
+
+    @BeforeEach
+    void crear() {
+        GeneradorDatos generador = new GeneradorDatos(EscalaDatos.pequena());
+        Hospital hospital = generador.generarHospital(0);
+        Departamento departamento = conMedicos(hospital);
+        paciente = generador.generarPacientes(hospital, 0, 0, 1).get(0);
+        medico = departamento.getMedicos().iterator().next();
+        sala = departamento.getSalas().get(0);
+        manager = new CitaManager();
+    }
+
+    @Test
+    void losEventosDelManagerLleganEnOrdenDePublicacion() throws Exception {
+        BusEventosCita bus = new BusEventosCita(manager, 8, 4, BusEventosCita.Contrapresion.BLOQUEAR, 1);
+        List<String> recibidos = new CopyOnWriteArrayList<>();
+        // Las ranuras se reutilizan: se copia lo que interesa del evento
+        bus.suscribir(lote -> lote.forEach(e -> recibidos.add(e.getTipo() + "@" + e.getCita().getFechaHora())));
+
+        Cita primera = manager.programarCita(paciente, medico, sala, TURNO, COSTO);
+        Cita segunda = manager.programarCita(paciente, medico, sala, TURNO.plusHours(2), COSTO);
+        manager.avanzarCita(primera);
+        manager.cancelarCita(segunda);
+        bus.close();
+
+        assertEquals(List.of(
+                "PROGRAMADA@" + TURNO,
+                "PROGRAMADA@" + TURNO.plusHours(2),
+                "INICIADA@" + TURNO,
+                "CANCELADA@" + TURNO.plusHours(2)), recibidos);
+        assertEquals(4, bus.getPublicados());
+        assertEquals(4, bus.getEntregados());
+        assertEquals(0, bus.getPendientes());
+    }
+
+    @Test
+    void conElBufferLlenoDescartarPierdeElEventoSinEsperar() throws Exception {
+        Cita cita = manager.programarCita(paciente, medico, sala, TURNO, COSTO);
+        BusEventosCita bus = new BusEventosCita(null, 2, 8, BusEventosCita.Contrapresion.DESCARTAR, 1);
+        CountDownLatch entregando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        // Mientras el consumidor está ocupado ninguna ranura se libera
+        bus.suscribir(lote -> {
+            entregando.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(bus.publicar(EventoCita.Tipo.PROGRAMADA, cita));
+        assertTrue(entregando.await(5, TimeUnit.SECONDS));
+        assertTrue(bus.publicar(EventoCita.Tipo.INICIADA, cita));
+        assertFalse(bus.publicar(EventoCita.Tipo.COMPLETADA, cita));
+        liberar.countDown();
+        bus.close();
+
+        assertEquals(1, bus.getDescartados());
+        assertEquals(2, bus.getEntregados());
+        // Cerrado, el bus ya no acepta eventos
+        assertFalse(bus.publicar(EventoCita.Tipo.CANCELADA, cita));
+        assertEquals(2, bus.getPublicados());
+    }
+
+    private static Departamento conMedicos(Hospital hospital) {
+        for (Departamento departamento : hospital.getDepartamentos()) {
+            if (!departamento.getMedicos().isEmpty()) {
+                return departamento;
+            }
+        }
+        throw new IllegalStateException("El hospital generado no tiene médicos");
+    }
+}
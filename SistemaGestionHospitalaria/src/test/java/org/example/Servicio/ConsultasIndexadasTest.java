@@ -0,0 +1,182 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regresión de las rutas de acceso de las consultas más usadas: sobre el dataset chico se pide el plan
+ * con {@code EXPLAIN} y se verifica que use el índice esperado y que no recorra la tabla completa.
+ * Se mira el plan y no el tiempo, que depende de la máquina.
+ *
+ * <p>Las consultas reproducen en SQL las de {@link ListadoService}, {@link ConsultaCitasService},
+ * {@link HospitalService} y la disponibilidad de agendas; los parámetros se toman de los datos cargados.</p>
+ */
+class ConsultasIndexadasTest {
+
+    private static EntityManagerFactory emf;
+    private static Object medico;
+    private static Object sala;
+    private static Object paciente;
+    private static LocalDateTime desde;
+    private static Object dniPaciente;
+    private static Object hospital;
+    private static Object dniMedico;
+
+    @BeforeAll
+    static void cargarDatos() throws InterruptedException {
+        emf = BaseEnMemoria.crear("consultas_indexadas", EscalaDatos.pequena(), Map.of());
+        conConexion(conexion -> {
+            Object[] cita = primeraFila(conexion, "SELECT medico_id, sala_id, paciente_id, fecha_hora FROM cita_tabla "
+                    + "ORDER BY idCita FETCH FIRST 1 ROWS ONLY");
+            assertNotNull(cita, "No hay citas cargadas");
+            medico = cita[0];
+            sala = cita[1];
+            paciente = cita[2];
+            desde = ((Timestamp) cita[3]).toLocalDateTime();
+            Object[] filaPaciente = primeraFila(conexion, "SELECT dni, hospital_id FROM pacientes WHERE id = ?", paciente);
+            dniPaciente = filaPaciente[0];
+            hospital = filaPaciente[1];
+            dniMedico = primeraFila(conexion, "SELECT dni FROM médico_tabla WHERE idMedico = ?", medico)[0];
+            return null;
+        });
+    }
+
+    @AfterAll
+    static void cerrar() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @Test
+    void agendaDelMedicoUsaIndiceMedicoFecha() {
+        assertUsaIndice("idx_cita_medico_fecha",
+                "SELECT idCita, fecha_hora, estado FROM cita_tabla "
+                        + "WHERE medico_id = ? AND fecha_hora >= ? AND fecha_hora < ? ORDER BY fecha_hora",
+                medico, desde, desde.plusDays(30));
+    }
+
+    @Test
+    void agendaDeLaSalaUsaIndiceSalaFecha() {
+        assertUsaIndice("idx_cita_sala_fecha",
+                "SELECT idCita, fecha_hora, estado FROM cita_tabla "
+                        + "WHERE sala_id = ? AND fecha_hora >= ? AND fecha_hora < ? ORDER BY fecha_hora",
+                sala, desde, desde.plusDays(30));
+    }
+
+    @Test
+    void turnoOcupadoDelMedicoUsaIndiceMedicoFecha() {
+        assertUsaIndice("idx_cita_medico_fecha",
+                "SELECT idCita FROM cita_tabla WHERE medico_id = ? AND fecha_hora > ? AND fecha_hora < ? "
+                        + "FETCH FIRST 1 ROWS ONLY",
+                medico, desde.minusHours(2), desde.plusHours(2));
+    }
+
+    @Test
+    void citasDelPacienteUsanIndicePacienteFecha() {
+        assertUsaIndice("idx_cita_paciente_fecha",
+                "SELECT idCita, fecha_hora FROM cita_tabla WHERE paciente_id = ? ORDER BY fecha_hora", paciente);
+    }
+
+    @Test
+    void conteoPorEstadoUsaIndiceEstadoFecha() {
+        assertUsaIndice("idx_cita_estado_fecha", "SELECT COUNT(*) FROM cita_tabla WHERE estado = ?", "PROGRAMADA");
+    }
+
+    @Test
+    void estadoEnRangoDeFechasUsaIndiceEstadoFecha() {
+        assertUsaIndice("idx_cita_estado_fecha",
+                "SELECT COUNT(*) FROM cita_tabla WHERE estado = ? AND fecha_hora >= ? AND fecha_hora < ?",
+                "COMPLETADA", desde, desde.plusDays(30));
+    }
+
+    @Test
+    void exportacionPorRangoUsaIndiceFecha() {
+        assertUsaIndice("idx_cita_fecha",
+                "SELECT idCita FROM cita_tabla WHERE fecha_hora >= ? AND fecha_hora < ? ORDER BY fecha_hora",
+                desde, desde.plusDays(1));
+    }
+
+    @Test
+    void pacientePorDniNoRecorreLaTabla() {
+        assertUsaIndice(null, "SELECT id FROM pacientes WHERE dni = ?", dniPaciente);
+    }
+
+    @Test
+    void medicoPorDniNoRecorreLaTabla() {
+        assertUsaIndice(null, "SELECT idMedico FROM médico_tabla WHERE dni = ?", dniMedico);
+    }
+
+    @Test
+    void pacientesDelHospitalUsanIndiceHospitalApellido() {
+        assertUsaIndice("idx_paciente_hospital_apellido",
+                "SELECT id, apellido, nombre FROM pacientes WHERE hospital_id = ? "
+                        + "ORDER BY apellido, nombre FETCH FIRST 50 ROWS ONLY",
+                hospital);
+    }
+
+    // indice null solo exige que no haya recorrido completo
+    private static void assertUsaIndice(String indice, String sql, Object... parametros) {
+        String plan = conConexion(conexion -> {
+            try (PreparedStatement ps = preparar(conexion, "EXPLAIN " + sql, parametros);
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getString(1).replaceAll("\\s+", " ");
+            }
+        });
+        String planMayusculas = plan.toUpperCase(Locale.ROOT);
+        // H2 marca el recorrido completo como "/* PUBLIC.TABLA.tableScan */"
+        assertFalse(planMayusculas.contains(".TABLESCAN"), () -> "Recorre la tabla completa: " + plan);
+        if (indice != null) {
+            assertTrue(planMayusculas.contains(indice.toUpperCase(Locale.ROOT)), () -> "No usa " + indice + ": " + plan);
+        }
+    }
+
+    private interface TrabajoJdbc<T> {
+        T ejecutar(Connection conexion) throws SQLException;
+    }
+
+    private static <T> T conConexion(TrabajoJdbc<T> trabajo) {
+        try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+            return session.doReturningWork(trabajo::ejecutar);
+        }
+    }
+
+    private static Object[] primeraFila(Connection conexion, String sql, Object... parametros) throws SQLException {
+        try (PreparedStatement ps = preparar(conexion, sql, parametros); ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            Object[] fila = new Object[rs.getMetaData().getColumnCount()];
+            for (int i = 0; i < fila.length; i++) {
+                fila[i] = rs.getObject(i + 1);
+            }
+            return fila;
+        }
+    }
+
+    private static PreparedStatement preparar(Connection conexion, String sql, Object... parametros) throws SQLException {
+        PreparedStatement ps = conexion.prepareStatement(sql);
+        for (int i = 0; i < parametros.length; i++) {
+            ps.setObject(i + 1, parametros[i]);
+        }
+        return ps;
+    }
+}
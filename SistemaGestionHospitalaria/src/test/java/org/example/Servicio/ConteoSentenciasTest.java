@@ -0,0 +1,73 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entidades.EspecialidadMedica;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Fija cuántas sentencias ejecuta cada servicio con {@link InstrumentacionPersistencia}: si un cambio
+ * agrega consultas (por ejemplo un N+1 al recorrer una asociación perezosa) la prueba falla.
+ * Cada caso usa un EntityManager nuevo, así nada sale del contexto de persistencia de otro caso.
+ */
+class ConteoSentenciasTest {
+
+    private static final InstrumentacionPersistencia INSTRUMENTACION =
+            new InstrumentacionPersistencia(Duration.ofSeconds(1), 2, sentencia -> {
+            });
+
+    private static EntityManagerFactory emf;
+    private static Long idHospital;
+
+    @BeforeAll
+    static void cargarDatos() throws InterruptedException {
+        emf = BaseEnMemoria.crear("conteo_sentencias", EscalaDatos.pequena(), INSTRUMENTACION.propiedades());
+        EntityManager em = emf.createEntityManager();
+        try {
+            idHospital = em.createQuery("SELECT MIN(h.idHospital) FROM Hospital h", Long.class).getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+
+    @AfterAll
+    static void cerrar() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @Test
+    void contarMedicosPorEspecialidadHaceUnaSentencia() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            MedicoService service = new MedicoService(em);
+            Map<EspecialidadMedica, Long> conteo = INSTRUMENTACION.verificarMaximo("conteo por especialidad", 1,
+                    service::contarMedicosPorEspecialidad);
+            assertFalse(conteo.isEmpty());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    void mostrarInformacionHospitalHaceDosSentencias() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            HospitalService service = new HospitalService(em);
+            INSTRUMENTACION.verificarMaximo("información del hospital", 2, () -> {
+                service.mostrarInformacionHospital(idHospital);
+                return null;
+            });
+        } finally {
+            em.close();
+        }
+    }
+}
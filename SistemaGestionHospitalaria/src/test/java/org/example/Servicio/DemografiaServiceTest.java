@@ -0,0 +1,59 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entidades.Paciente;
+import org.example.entidades.TipoSangre;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Los grupos etarios que {@link DemografiaService} calcula en SQL con cortes de fecha tienen que coincidir
+ * con los de {@link GrupoEtario#de} sobre {@link Paciente#getEdad}, paciente por paciente.
+ */
+class DemografiaServiceTest {
+
+    private static EntityManagerFactory emf;
+
+    @BeforeAll
+    static void cargarDatos() throws InterruptedException {
+        emf = BaseEnMemoria.crear("demografia", EscalaDatos.pequena(), Map.of());
+    }
+
+    @AfterAll
+    static void cerrar() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @Test
+    void losGruposEnSqlCoincidenConLaEdadDelPaciente() {
+        Map<GrupoEtario, Map<TipoSangre, Long>> esperado = new EnumMap<>(GrupoEtario.class);
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Paciente> pacientes = em.createQuery("SELECT p FROM Paciente p", Paciente.class).getResultList();
+            for (Paciente paciente : pacientes) {
+                esperado.computeIfAbsent(GrupoEtario.de(paciente.getEdad()), g -> new EnumMap<>(TipoSangre.class))
+                        .merge(paciente.getTipoSangre(), 1L, Long::sum);
+            }
+        } finally {
+            em.close();
+        }
+
+        DemografiaService.Demografia red = new DemografiaService(emf, (CitaManager) null).red();
+        for (GrupoEtario grupo : GrupoEtario.values()) {
+            for (TipoSangre tipo : TipoSangre.values()) {
+                long cantidad = esperado.getOrDefault(grupo, Map.of()).getOrDefault(tipo, 0L);
+                assertEquals(cantidad, red.cantidad(grupo, tipo), grupo + " " + tipo);
+            }
+        }
+    }
+}
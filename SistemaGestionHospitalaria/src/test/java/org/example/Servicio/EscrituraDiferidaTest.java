@@ -0,0 +1,179 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entidades.Cita;
+import org.example.entidades.EstadoCita;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.Sala;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Escritura diferida contra la base en memoria: orden de las sentencias dentro de un lote y camino de
+ * las filas que se descartan. Cada caso usa su propio médico y sala y un intervalo largo, así cada
+ * lote se escribe recién al cerrar y todo lo encolado entra en la misma transacción.
+ */
+class EscrituraDiferidaTest {
+
+    private static final BigDecimal COSTO = new BigDecimal("1000.00");
+    private static final LocalDate DIA = LocalDate.now().plusYears(1);
+    private static final Duration SIN_FLUSH_PERIODICO = Duration.ofHours(1);
+
+    private static EntityManagerFactory emf;
+    private static List<Object[]> medicosYSalas;
+    private static int siguiente;
+
+    private Paciente paciente;
+    private Medico medico;
+    private Sala sala;
+    private CitaManager manager;
+
+    @BeforeAll
+    static void cargarDatos() throws InterruptedException {
+        emf = BaseEnMemoria.crear("escritura_diferida", EscalaDatos.pequena(), Map.of());
+        EntityManager em = emf.createEntityManager();
+        try {
+            medicosYSalas = em.createQuery("SELECT m.idMedico, s.idSala FROM Medico m "
+                    + "JOIN Sala s ON s.departamento = m.departamento ORDER BY m.idMedico, s.idSala", Object[].class)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    @AfterAll
+    static void cerrar() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @BeforeEach
+    void elegirTurno() {
+        Object[] ids = medicosYSalas.get(siguiente++);
+        EntityManager em = emf.createEntityManager();
+        try {
+            paciente = em.createQuery("SELECT p FROM Paciente p ORDER BY p.id", Paciente.class)
+                    .setMaxResults(1)
+                    .getSingleResult();
+            medico = em.find(Medico.class, ids[0]);
+            sala = em.createQuery("SELECT s FROM Sala s JOIN FETCH s.departamento WHERE s.idSala = :id", Sala.class)
+                    .setParameter("id", ids[1])
+                    .getSingleResult();
+        } finally {
+            em.close();
+        }
+        manager = new CitaManager();
+    }
+
+    @Test
+    void unaCancelacionLiberaElBloqueAntesDeLaInsercionDelMismoLote() throws Exception {
+        Cita cancelada = persistida(DIA.atTime(10, 0));
+
+        EscrituraDiferida escritura = new EscrituraDiferida(emf, manager, SIN_FLUSH_PERIODICO, 100);
+        manager.cancelarCita(cancelada);
+        Cita reemplazo = manager.programarCita(paciente, medico, sala, DIA.atTime(10, 0), COSTO);
+        escritura.close();
+
+        // Las dos filas entran juntas: si la inserción fuera primero chocaría con el bloque todavía ocupado
+        assertEquals(1, escritura.getLotes());
+        assertNull(escritura.getUltimoError());
+        assertEquals(2, escritura.getEscritas());
+        assertNotNull(reemplazo.getIdCita());
+        assertEquals(EstadoCita.CANCELADA, estadoEnBase(cancelada));
+        assertEquals(EstadoCita.PROGRAMADA, estadoEnBase(reemplazo));
+    }
+
+    @Test
+    void unaActualizacionSinFilaSeRechazaYMarcaLaCita() throws Exception {
+        Cita archivada = persistida(DIA.atTime(14, 0));
+        borrarEnBase(archivada);
+
+        EscrituraDiferida escritura = new EscrituraDiferida(emf, manager, SIN_FLUSH_PERIODICO, 100);
+        List<EscrituraDiferida.Rechazo> avisados = new ArrayList<>();
+        escritura.alRechazar(avisados::add);
+        manager.cancelarCita(archivada);
+        escritura.close();
+
+        assertEquals(1, escritura.getFallidas());
+        assertEquals(0, escritura.getEscritas());
+        assertEquals(1, avisados.size());
+        EscrituraDiferida.Rechazo rechazo = avisados.get(0);
+        assertSame(archivada, rechazo.cita());
+        assertFalse(rechazo.insercion());
+        assertEquals(EstadoCita.CANCELADA, rechazo.estado());
+        assertEquals(avisados, escritura.getRechazadas());
+        assertFalse(manager.estaPersistida(archivada));
+        assertEquals(List.of(archivada), manager.getCitasSinPersistir());
+    }
+
+    @Test
+    void unaInsercionQueChocaSeRechazaTrasLosReintentos() throws Exception {
+        // Otro nodo ya reservó el turno directamente en la base; este manager no lo ve
+        new ReservaCitasService(emf).reservar(paciente.getId(), medico.getIdMedico(), sala.getIdSala(),
+                DIA.atTime(16, 0), COSTO);
+
+        EscrituraDiferida escritura = new EscrituraDiferida(emf, manager, SIN_FLUSH_PERIODICO, 100);
+        Cita duplicada = manager.programarCita(paciente, medico, sala, DIA.atTime(16, 0), COSTO);
+        escritura.close();
+
+        assertNull(duplicada.getIdCita());
+        assertEquals(1, escritura.getFallidas());
+        List<EscrituraDiferida.Rechazo> rechazadas = escritura.getRechazadas();
+        assertEquals(1, rechazadas.size());
+        assertTrue(rechazadas.get(0).insercion());
+        assertFalse(manager.estaPersistida(duplicada));
+    }
+
+    // Programa una cita y la deja escrita con una escritura diferida que después se desengancha del manager
+    private Cita persistida(LocalDateTime fechaHora) throws Exception {
+        EscrituraDiferida previa = new EscrituraDiferida(emf, manager, SIN_FLUSH_PERIODICO, 100);
+        Cita cita = manager.programarCita(paciente, medico, sala, fechaHora, COSTO);
+        previa.close();
+        manager.quitarObservador(previa);
+        assertNotNull(cita.getIdCita());
+        return cita;
+    }
+
+    private EstadoCita estadoEnBase(Cita cita) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find(Cita.class, cita.getIdCita()).getEstado();
+        } finally {
+            em.close();
+        }
+    }
+
+    // Como si ArchivoCitas la hubiera movido fuera de cita_tabla
+    private void borrarEnBase(Cita cita) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM Cita c WHERE c.idCita = :id")
+                    .setParameter("id", cita.getIdCita())
+                    .executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.Servicio;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entidades.Cita;
+import org.example.entidades.Departamento;
+import org.example.entidades.Hospital;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.Sala;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El {@link CitaManager} en memoria y la reserva contra la base ({@link ReservaCitasService}) aplican
+ * la misma regla de turnos: solo inicios de la grilla de {@link CitaManager#DURACION_CITA}. Dos citas
+ * contiguas se aceptan por los dos caminos y un horario fuera de la grilla se rechaza por los dos,
+ * en lugar de que la restricción por bloque de la base informe un choque que el manager no ve.
+ */
+class GrillaTurnosTest {
+
+    private static final BigDecimal COSTO = new BigDecimal("1000.00");
+    // El dataset chico empieza en 2025 y ocupa pocos meses: un año después de hoy no tiene citas
+    private static final LocalDate DIA = LocalDate.now().plusYears(1);
+
+    private static EntityManagerFactory emf;
+
+    @BeforeAll
+    static void cargarDatos() throws InterruptedException {
+        emf = BaseEnMemoria.crear("grilla_turnos", EscalaDatos.pequena(), Map.of());
+    }
+
+    @AfterAll
+    static void cerrar() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @Test
+    void laGrillaSeCuentaDesdeLaMedianoche() {
+        assertTrue(CitaManager.esInicioDeTurno(DIA.atTime(10, 0)));
+        assertFalse(CitaManager.esInicioDeTurno(DIA.atTime(9, 0)));
+        assertFalse(CitaManager.esInicioDeTurno(DIA.atTime(10, 0, 0, 1)));
+        assertEquals(DIA.atTime(10, 0), CitaManager.primerTurnoDesde(DIA.atTime(9, 30)));
+        assertEquals(DIA.atTime(10, 0), CitaManager.primerTurnoDesde(DIA.atTime(10, 0)));
+        assertEquals(DIA.plusDays(1).atStartOfDay(), CitaManager.primerTurnoDesde(DIA.atTime(23, 0)));
+    }
+
+    @Test
+    void elManagerAceptaTurnosContiguosYRechazaLosFueraDeGrilla() throws CitaException {
+        GeneradorDatos generador = new GeneradorDatos(EscalaDatos.pequena());
+        Hospital hospital = generador.generarHospital(0);
+        Paciente paciente = generador.generarPacientes(hospital, 0, 0, 1).get(0);
+        Departamento departamento = conMedicos(hospital);
+        Medico medico = departamento.getMedicos().iterator().next();
+        Sala sala = departamento.getSalas().get(0);
+        CitaManager manager = new CitaManager();
+
+        Cita primera = manager.programarCita(paciente, medico, sala, DIA.atTime(10, 0), COSTO);
+        Cita contigua = manager.programarCita(paciente, medico, sala, DIA.atTime(12, 0), COSTO);
+        // Cada una ocupa un solo bloque y no comparten ninguno
+        assertEquals(1, Cita.bloquesDe(primera.getFechaHora()).length);
+        assertEquals(1, Cita.bloquesDe(contigua.getFechaHora()).length);
+        assertEquals(Cita.bloquesDe(primera.getFechaHora())[0] + 1, Cita.bloquesDe(contigua.getFechaHora())[0]);
+
+        CitaException fueraDeGrilla = assertThrows(CitaException.class,
+                () -> manager.programarCita(paciente, medico, sala, DIA.atTime(15, 0), COSTO));
+        assertTrue(fueraDeGrilla.getMessage().contains("inicio de un turno"), fueraDeGrilla.getMessage());
+
+        // El asignador alinea la ventana pedida a la grilla en vez de proponer 14:30
+        AsignadorCitas asignador = new AsignadorCitas(manager);
+        asignador.registrarHospital(hospital);
+        Cita asignada = asignador.asignar(paciente, departamento.getEspecialidad(),
+                DIA.atTime(11, 30), DIA.atTime(20, 0), COSTO);
+        assertTrue(CitaManager.esInicioDeTurno(asignada.getFechaHora()), asignada.getFechaHora().toString());
+    }
+
+    @Test
+    void laReservaEnBaseAceptaTurnosContiguosYRechazaLosFueraDeGrilla() throws CitaException {
+        Long[] ids = medicoSalaYPaciente();
+        ReservaCitasService reservas = new ReservaCitasService(emf);
+
+        Cita primera = reservas.reservar(ids[2], ids[0], ids[1], DIA.atTime(10, 0), COSTO);
+        Cita contigua = reservas.reservar(ids[2], ids[0], ids[1], DIA.atTime(12, 0), COSTO);
+        assertNotNull(primera.getIdCita());
+        assertNotNull(contigua.getIdCita());
+
+        CitaException ocupado = assertThrows(CitaException.class,
+                () -> reservas.reservar(ids[2], ids[0], ids[1], DIA.atTime(12, 0), COSTO));
+        assertTrue(ocupado.getMessage().contains("no están disponibles"), ocupado.getMessage());
+
+        CitaException fueraDeGrilla = assertThrows(CitaException.class,
+                () -> reservas.reservar(ids[2], ids[0], ids[1], DIA.atTime(15, 0), COSTO));
+        assertTrue(fueraDeGrilla.getMessage().contains("inicio de un turno"), fueraDeGrilla.getMessage());
+    }
+
+    private static Departamento conMedicos(Hospital hospital) {
+        for (Departamento departamento : hospital.getDepartamentos()) {
+            if (!departamento.getMedicos().isEmpty()) {
+                return departamento;
+            }
+        }
+        throw new IllegalStateException("El hospital generado no tiene médicos");
+    }
+
+    // Un médico, una sala de su departamento y un paciente cualquiera
+    private static Long[] medicoSalaYPaciente() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Object[]> filas = em.createQuery(
+                            "SELECT m.idMedico, s.idSala FROM Medico m JOIN Sala s ON s.departamento = m.departamento "
+                                    + "ORDER BY m.idMedico, s.idSala", Object[].class)
+                    .setMaxResults(1)
+                    .getResultList();
+            assertFalse(filas.isEmpty(), "No hay médicos con sala en su departamento");
+            Long idPaciente = em.createQuery("SELECT MIN(p.id) FROM Paciente p", Long.class).getSingleResult();
+            return new Long[]{(Long) filas.get(0)[0], (Long) filas.get(0)[1], idPaciente};
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+import org.example.entidades.Departamento;
+import org.example.entidades.EspecialidadMedica;
+import org.example.entidades.Hospital;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.Sala;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reasignación de turnos liberados, sobre hospitales generados en memoria sin base. Cerrar la lista
+ * espera a que termine la reasignación, así que después de cerrarla se puede mirar el resultado.
+ */
+class ListaEsperaTest {
+
+    private static final BigDecimal COSTO = new BigDecimal("1000.00");
+    private static final LocalDateTime TURNO = LocalDate.now().plusYears(1).atTime(10, 0);
+
+    private Hospital hospital;
+    private Hospital otroHospital;
+    private Departamento departamento;
+    private Medico medico;
+    private Sala sala;
+    private List<Paciente> pacientes;
+    private CitaManager manager;
+    private ListaEspera lista;
+
+    @BeforeEach
+    void crear() {
+        GeneradorDatos generador = new GeneradorDatos(EscalaDatos.pequena());
+        hospital = generador.generarHospital(0);
+        otroHospital = generador.generarHospital(1);
+        departamento = conMedicos(hospital);
+        medico = departamento.getMedicos().iterator().next();
+        sala = departamento.getSalas().get(0);
+        pacientes = generador.generarPacientes(hospital, 0, 0, 4);
+        manager = new CitaManager();
+        lista = new ListaEspera(manager);
+    }
+
+    @AfterEach
+    void cerrar() throws InterruptedException {
+        lista.close();
+    }
+
+    @Test
+    void elTurnoCanceladoPasaAlPrimeroQueEspera() throws Exception {
+        Cita cancelada = manager.programarCita(pacientes.get(0), medico, sala, TURNO, COSTO);
+        ListaEspera.Solicitud normal = lista.programarOEsperar(pacientes.get(1), medico, sala, TURNO,
+                COSTO, PrioridadEspera.NORMAL);
+        ListaEspera.Solicitud urgente = lista.esperarSala(pacientes.get(2), sala, TURNO.toLocalDate(),
+                COSTO, PrioridadEspera.URGENTE);
+        assertTrue(normal.isPendiente());
+        assertEquals(2, lista.getPendientes());
+
+        manager.cancelarCita(cancelada);
+        lista.close();
+        Cita asignada = urgente.getCita().get(5, TimeUnit.SECONDS);
+
+        assertSame(pacientes.get(2), asignada.getPaciente());
+        assertEquals(TURNO, asignada.getFechaHora());
+        assertSame(medico, asignada.getMedico());
+        assertTrue(normal.isPendiente());
+        assertEquals(1, lista.getPendientes());
+        assertEquals(1, lista.getAsignadas());
+    }
+
+    @Test
+    void siLaPrimeraNoPuedeTomarElTurnoSeOfreceALaSiguiente() throws Exception {
+        Cita cancelada = manager.programarCita(pacientes.get(0), medico, sala, TURNO, COSTO);
+        // Un costo con fracción de centavo hace fallar la programación de esta solicitud
+        ListaEspera.Solicitud invalida = lista.esperarMedico(pacientes.get(1), medico, TURNO.toLocalDate(),
+                new BigDecimal("1000.005"), PrioridadEspera.URGENTE);
+        ListaEspera.Solicitud siguiente = lista.esperarMedico(pacientes.get(2), medico, TURNO.toLocalDate(),
+                COSTO, PrioridadEspera.NORMAL);
+
+        manager.cancelarCita(cancelada);
+        lista.close();
+        Cita asignada = siguiente.getCita().get(5, TimeUnit.SECONDS);
+
+        assertSame(pacientes.get(2), asignada.getPaciente());
+        // La que no pudo usarlo vuelve a esperar
+        assertTrue(invalida.isPendiente());
+        assertEquals(1, lista.getPendientes());
+    }
+
+    @Test
+    void unPedidoPorEspecialidadSoloTomaTurnosDeSuHospital() throws Exception {
+        EspecialidadMedica especialidad = departamento.getEspecialidad();
+        Cita cancelada = manager.programarCita(pacientes.get(0), medico, sala, TURNO, COSTO);
+        // Llega primero, pero espera en otro hospital
+        ListaEspera.Solicitud deOtroHospital = lista.esperarEspecialidad(pacientes.get(1), otroHospital,
+                especialidad, TURNO.toLocalDate(), COSTO, PrioridadEspera.URGENTE);
+        ListaEspera.Solicitud delHospital = lista.esperarEspecialidad(pacientes.get(2), hospital,
+                especialidad, TURNO.toLocalDate(), COSTO, PrioridadEspera.NORMAL);
+
+        manager.cancelarCita(cancelada);
+        lista.close();
+        Cita asignada = delHospital.getCita().get(5, TimeUnit.SECONDS);
+
+        assertSame(pacientes.get(2), asignada.getPaciente());
+        assertTrue(deOtroHospital.isPendiente());
+        assertTrue(lista.retirar(deOtroHospital));
+        assertTrue(deOtroHospital.getCita().isCancelled());
+        assertEquals(0, lista.getPendientes());
+    }
+
+    private static Departamento conMedicos(Hospital hospital) {
+        for (Departamento departamento : hospital.getDepartamentos()) {
+            if (!departamento.getMedicos().isEmpty()) {
+                return departamento;
+            }
+        }
+        throw new IllegalStateException("El hospital generado no tiene médicos");
+    }
+}
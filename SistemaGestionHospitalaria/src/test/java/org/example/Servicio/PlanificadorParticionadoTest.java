@@ -0,0 +1,90 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+import org.example.entidades.Departamento;
+import org.example.entidades.Hospital;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.Sala;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Enrutamiento por hospital y combinación de las consultas que cruzan shards.
+ */
+class PlanificadorParticionadoTest {
+
+    private static final BigDecimal COSTO = new BigDecimal("1000.00");
+    private static final LocalDateTime TURNO = LocalDate.now().plusYears(1).atTime(10, 0);
+
+    private Hospital hospital;
+    private Hospital otroHospital;
+    private Paciente paciente;
+    private PlanificadorParticionado planificador;
+
+    @BeforeEach
+    void crear() {
+        GeneradorDatos generador = new GeneradorDatos(EscalaDatos.pequena());
+        hospital = generador.generarHospital(0);
+        otroHospital = generador.generarHospital(1);
+        paciente = generador.generarPacientes(hospital, 0, 0, 1).get(0);
+        planificador = new PlanificadorParticionado(2);
+    }
+
+    @AfterEach
+    void cerrar() {
+        planificador.close();
+    }
+
+    @Test
+    void cadaCitaVaAlShardDeSuHospitalYLasConsultasSeCombinan() throws CitaException {
+        Departamento departamento = conMedicos(hospital);
+        Departamento otroDepartamento = conMedicos(otroHospital);
+        // La del otro hospital se programa primero pero es más temprano en el día siguiente
+        Cita tarde = planificador.programarCita(paciente, departamento.getMedicos().iterator().next(),
+                departamento.getSalas().get(0), TURNO.plusDays(1), COSTO);
+        Cita temprano = planificador.programarCita(paciente, otroDepartamento.getMedicos().iterator().next(),
+                otroDepartamento.getSalas().get(0), TURNO, COSTO);
+
+        assertEquals(List.of(tarde), planificador.getShard(hospital).getCitasPorPaciente(paciente));
+        assertEquals(List.of(temprano), planificador.getShard(otroHospital).getCitasPorPaciente(paciente));
+        assertEquals(List.of(temprano, tarde), planificador.getCitasPorPaciente(paciente));
+        assertEquals(2, planificador.cantidadCitas());
+    }
+
+    @Test
+    void rechazaMedicoYSalaDeHospitalesDistintos() {
+        Departamento departamento = conMedicos(hospital);
+        Medico medico = departamento.getMedicos().iterator().next();
+        // Misma especialidad, así el único motivo de rechazo es el hospital
+        Sala sala = otroHospital.getDepartamentos().stream()
+                .filter(otro -> otro.getEspecialidad() == departamento.getEspecialidad())
+                .findFirst()
+                .orElseThrow()
+                .getSalas().get(0);
+
+        CitaException error = assertThrows(CitaException.class,
+                () -> planificador.programarCita(paciente, medico, sala, TURNO, COSTO));
+        assertTrue(error.getMessage().contains("hospitales distintos"), error.getMessage());
+        assertEquals(0, planificador.cantidadCitas());
+    }
+
+    private static Departamento conMedicos(Hospital hospital) {
+        for (Departamento departamento : hospital.getDepartamentos()) {
+            if (!departamento.getMedicos().isEmpty()) {
+                return departamento;
+            }
+        }
+        throw new IllegalStateException("El hospital generado no tiene médicos");
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.Servicio;
+
+import org.example.entidades.Cita;
+import org.example.entidades.Departamento;
+import org.example.entidades.Hospital;
+import org.example.entidades.Medico;
+import org.example.entidades.Paciente;
+import org.example.entidades.Sala;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Series semanales de tres citas cuya segunda ocurrencia choca con una cita que ya existe.
+ */
+class SerieCitasTest {
+
+    private static final BigDecimal COSTO = new BigDecimal("1000.00");
+    private static final LocalDateTime INICIO = LocalDate.now().plusYears(1).atTime(10, 0);
+    private static final ReglaRecurrencia TRES_SEMANAS = ReglaRecurrencia.semanal(INICIO, 3);
+
+    private Paciente paciente;
+    private Medico medico;
+    private Sala sala;
+    private CitaManager manager;
+
+    @BeforeEach
+    void crear() throws CitaException {
+        GeneradorDatos generador = new GeneradorDatos(EscalaDatos.pequena());
+        Hospital hospital = generador.generarHospital(0);
+        Departamento departamento = conMedicos(hospital);
+        List<Paciente> pacientes = generador.generarPacientes(hospital, 0, 0, 2);
+        paciente = pacientes.get(0);
+        medico = departamento.getMedicos().iterator().next();
+        sala = departamento.getSalas().get(0);
+        manager = new CitaManager();
+        manager.programarCita(pacientes.get(1), medico, sala, INICIO.plusWeeks(1), COSTO);
+    }
+
+    @Test
+    void correrLlevaLaOcurrenciaAlTurnoSiguiente() throws CitaException {
+        ResultadoSerie serie = manager.programarSerie(paciente, medico, sala, TRES_SEMANAS, COSTO,
+                PoliticaConflicto.CORRER, false);
+
+        assertTrue(serie.confirmada());
+        assertEquals(3, serie.citas().size());
+        assertEquals(1, serie.corridas());
+        assertEquals(INICIO.plusWeeks(1).plusHours(2), serie.ocurrencias().get(1).asignada());
+        assertEquals(4, manager.cantidadCitas());
+    }
+
+    @Test
+    void omitirSaltaLaOcurrenciaOcupada() throws CitaException {
+        ResultadoSerie serie = manager.programarSerie(paciente, medico, sala, TRES_SEMANAS, COSTO,
+                PoliticaConflicto.OMITIR, false);
+
+        assertTrue(serie.confirmada());
+        assertEquals(1, serie.omitidas());
+        assertTrue(serie.ocurrencias().get(1).isOmitida());
+        assertEquals(List.of(INICIO, INICIO.plusWeeks(2)),
+                serie.citas().stream().map(Cita::getFechaHora).toList());
+    }
+
+    @Test
+    void todoONadaNoCreaNingunaCitaSiAlgunaChoca() throws CitaException {
+        ResultadoSerie serie = manager.programarSerie(paciente, medico, sala, TRES_SEMANAS, COSTO,
+                PoliticaConflicto.OMITIR, true);
+
+        assertFalse(serie.confirmada());
+        assertTrue(serie.citas().isEmpty());
+        // El reporte igual dice cuál chocaba
+        assertTrue(serie.ocurrencias().get(1).isOmitida());
+        assertEquals(1, manager.cantidadCitas());
+        assertTrue(manager.getCitasPorPaciente(paciente).isEmpty());
+    }
+
+    private static Departamento conMedicos(Hospital hospital) {
+        for (Departamento departamento : hospital.getDepartamentos()) {
+            if (!departamento.getMedicos().isEmpty()) {
+                return departamento;
+            }
+        }
+        throw new IllegalStateException("El hospital generado no tiene médicos");
+    }
+}